@@ -0,0 +1,59 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.UserRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * One booted application per fork, with a user and a list that the item benchmarks write into.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    public ConfigurableApplicationContext context;
+    public User user;
+    public GroceryList list;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        user = bean(UserRepository.class).save(new User("benchUser", "encodedPass", "bench@example.com"));
+        list = bean(GroceryListRepository.class).save(new GroceryList("Bench", user));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // The batch delete and patch paths read the username from the security context of the calling thread
+    public void authenticateCurrentThread() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+    }
+
+    public List<Long> itemIds() {
+        return bean(JdbcTemplate.class).queryForList(
+                "select id from items where list_id = ? order by id", Long.class, list.getId());
+    }
+
+    public void clearItems() {
+        bean(JdbcTemplate.class).update("delete from items where list_id = ?", list.getId());
+    }
+}
@@ -0,0 +1,39 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.GrocerylistApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application without a web server on a private in-memory H2 database. Settings are
+ * passed as command-line arguments so they win over application.properties and the environment.
+ */
+final class BenchmarkContext {
+
+    static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret=" + SECRET,
+                "--actuator.password=benchmark",
+                "--logging.level.root=WARN"
+        };
+        String[] all = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(extraArgs, 0, all, args.length, extraArgs.length);
+
+        return new SpringApplicationBuilder(GrocerylistApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all);
+    }
+}
@@ -0,0 +1,70 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.repository.ItemRepository;
+import com.marcus.grocerylist.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk item creation on H2: the JDBC batch path behind POST /items/batch-create against the
+ * per-entity saveAll it replaced. The items counter reports items/second next to batches/second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ItemBatchBenchmark {
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"10", "100", "1000", "10000"})
+        public int batchSize;
+
+        public List<String> names;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            names = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                names.add("Item " + i);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void clear(ApplicationState app) {
+            app.clearItems();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ItemCounter {
+        public long items;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            items = 0;
+        }
+    }
+
+    @Benchmark
+    public void createItemsInBatch(ApplicationState app, Batch batch, ItemCounter counter) {
+        app.bean(ItemService.class).createItemsInBatch(app.list, batch.names);
+        counter.items += batch.batchSize;
+    }
+
+    @Benchmark
+    public void saveAllPerEntity(ApplicationState app, Batch batch, ItemCounter counter) {
+        List<Item> items = new ArrayList<>(batch.batchSize);
+        for (String name : batch.names) {
+            items.add(new Item(name, app.list));
+        }
+        app.bean(ItemRepository.class).saveAll(items);
+        counter.items += batch.batchSize;
+    }
+}
@@ -0,0 +1,50 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.repository.ItemBatchWriter;
+import com.marcus.grocerylist.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemService.deleteItemsInBatch on H2, including the ownership check. Every invocation deletes a
+ * freshly inserted set of items; the insert is done in the untimed setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ItemDeleteBenchmark {
+
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"10", "100", "1000", "5000"})
+        public int batchSize;
+
+        public List<String> names;
+        public List<Long> ids;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationState app) {
+            app.authenticateCurrentThread();
+            names = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                names.add("Item " + i);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void insert(ApplicationState app) {
+            app.bean(ItemBatchWriter.class).insertAll(app.list.getId(), names, 1);
+            ids = app.itemIds();
+        }
+    }
+
+    @Benchmark
+    public void deleteItemsInBatch(ApplicationState app, Batch batch) {
+        app.bean(ItemService.class).deleteItemsInBatch(batch.ids);
+    }
+}
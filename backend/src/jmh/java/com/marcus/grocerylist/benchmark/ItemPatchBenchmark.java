@@ -0,0 +1,75 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import com.marcus.grocerylist.dto.ItemVersion;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.repository.ItemBatchWriter;
+import com.marcus.grocerylist.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking off N items: N lookups and saves as PUT /items/{id} does, against one
+ * PATCH /items/batch. Both flip the completed flag of every item on each call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ItemPatchBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cart {
+        @Param({"10", "50", "200"})
+        public int size;
+
+        public List<Long> ids;
+        public boolean completed;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationState app) {
+            app.authenticateCurrentThread();
+            app.clearItems();
+            List<String> names = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                names.add("Item " + i);
+            }
+            app.bean(ItemBatchWriter.class).insertAll(app.list.getId(), names, 1);
+            ids = app.itemIds();
+        }
+
+        @Setup(Level.Invocation)
+        public void toggle() {
+            completed = !completed;
+        }
+    }
+
+    @Benchmark
+    public int singlePuts(ApplicationState app, Cart cart) {
+        ItemService itemService = app.bean(ItemService.class);
+        int saved = 0;
+        for (Long id : cart.ids) {
+            Item item = itemService.findById(id).orElseThrow();
+            item.setCompleted(cart.completed);
+            itemService.saveItem(item);
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public List<ItemVersion> batchPatch(ApplicationState app, Cart cart) {
+        List<ItemPatchRequest> patches = new ArrayList<>(cart.ids.size());
+        for (Long id : cart.ids) {
+            ItemPatchRequest patch = new ItemPatchRequest();
+            patch.setId(id);
+            patch.setCompleted(cart.completed);
+            patches.add(patch);
+        }
+        return app.bean(ItemService.class).patchItemsInBatch(patches);
+    }
+}
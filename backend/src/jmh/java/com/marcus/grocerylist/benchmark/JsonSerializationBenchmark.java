@@ -0,0 +1,59 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization for the list endpoints, using an ObjectMapper configured the way Spring MVC builds it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Item> items;
+    private List<GroceryList> lists;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        GroceryList parent = new GroceryList("Weekly", null);
+        parent.setId(1L);
+
+        items = new ArrayList<>(size);
+        lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Item item = new Item("Item " + i, parent, false, i % 5);
+            item.setId((long) i);
+            items.add(item);
+
+            GroceryList list = new GroceryList("List " + i, null);
+            list.setId((long) i);
+            lists.add(list);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeItems() throws Exception {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] serializeLists() throws Exception {
+        return objectMapper.writeValueAsBytes(lists);
+    }
+}
@@ -0,0 +1,53 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.jwt.JwtUtil;
+import com.marcus.grocerylist.jwt.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing and verification. verify measures the path JwtAuthenticationFilter takes on every
+ * request, with the verified-token cache switched on and off (jwt.cache.enabled).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", BenchmarkContext.SECRET);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, cacheEnabled, 10_000);
+        token = jwtUtil.generateToken("benchUser", 1L);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("benchUser", 1L);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return verifiedTokenCache.verify(token);
+    }
+}
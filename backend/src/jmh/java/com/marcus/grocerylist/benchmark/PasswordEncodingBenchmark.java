@@ -0,0 +1,50 @@
+package com.marcus.grocerylist.benchmark;
+
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.UserRepository;
+import com.marcus.grocerylist.service.PrincipalCache;
+import com.marcus.grocerylist.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of UserService.registerNewUser, which is dominated by BCrypt. The repository is a stub so
+ * only the hashing is measured. Strength 10 is what SecurityConfig uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncodingBenchmark {
+
+    @Param({"10", "12"})
+    public int strength;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService = new UserService(userRepository, new BCryptPasswordEncoder(strength),
+                new PrincipalCache(Duration.ofMinutes(5), 10));
+    }
+
+    @Benchmark
+    public User registerNewUser() {
+        return userService.registerNewUser(new User("benchUser", "correct horse battery staple", "bench@example.com"));
+    }
+}
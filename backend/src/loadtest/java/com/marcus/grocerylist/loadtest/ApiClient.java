@@ -0,0 +1,93 @@
+package com.marcus.grocerylist.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Thin JSON client over java.net.http that times every call under its endpoint name.
+ */
+final class ApiClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+    private final String baseUrl;
+    private String token;
+
+    ApiClient(HttpClient httpClient, ObjectMapper objectMapper, LatencyRecorder recorder, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.recorder = recorder;
+        this.baseUrl = baseUrl;
+    }
+
+    String token() {
+        return token;
+    }
+
+    void setToken(String token) {
+        this.token = token;
+    }
+
+    JsonNode get(String endpoint, String path) {
+        return send(endpoint, "GET", path, null);
+    }
+
+    JsonNode post(String endpoint, String path, Object body) {
+        return send(endpoint, "POST", path, body);
+    }
+
+    JsonNode put(String endpoint, String path, Object body) {
+        return send(endpoint, "PUT", path, body);
+    }
+
+    JsonNode patch(String endpoint, String path, Object body) {
+        return send(endpoint, "PATCH", path, body);
+    }
+
+    JsonNode delete(String endpoint, String path, Object body) {
+        return send(endpoint, "DELETE", path, body);
+    }
+
+    private JsonNode send(String endpoint, String method, String path, Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        try {
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long elapsed = System.nanoTime() - start;
+
+            boolean success = response.statusCode() < 400;
+            recorder.record(endpoint, elapsed, success);
+            if (!success) {
+                throw new IllegalStateException(endpoint + " returned " + response.statusCode()
+                        + ": " + new String(response.body()));
+            }
+            return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            recorder.record(endpoint, 0, false);
+            throw new IllegalStateException(endpoint + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(endpoint + " interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.marcus.grocerylist.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one of many concurrent clients does when they share a handful of seeded accounts: read the
+ * lists, open one, page through it and tick a few items off, round after round. Sign-up is left out
+ * so that thousands of clients measure request handling and database access, not password hashing.
+ */
+final class BrowserScenario implements Runnable {
+
+    private static final int PATCHED_ITEMS_PER_ROUND = 10;
+
+    private final ApiClient api;
+    private final LoadTestConfig config;
+    private final Account account;
+    private final int client;
+
+    BrowserScenario(ApiClient api, LoadTestConfig config, Account account, int client) {
+        this.api = api;
+        this.config = config;
+        this.account = account;
+        this.client = client;
+    }
+
+    @Override
+    public void run() {
+        api.setToken(account.token());
+        for (int round = 0; round < config.rounds; round++) {
+            long listId = account.listIds().get((client + round) % account.listIds().size());
+            api.get("GET /lists", "/lists");
+            JsonNode items = api.get("GET /items/list/{listId}", "/items/list/" + listId);
+            api.get("GET /items/list/{listId}?limit", "/items/list/" + listId + "?limit=50");
+
+            List<Map<String, Object>> patches = new ArrayList<>();
+            for (int i = 0; i < items.size() && patches.size() < PATCHED_ITEMS_PER_ROUND; i++) {
+                patches.add(Map.of("id", items.get(i).get("id").asLong(), "completed", round % 2 == 0));
+            }
+            if (!patches.isEmpty()) {
+                api.patch("PATCH /items/batch", "/items/batch", Map.of("items", patches));
+            }
+        }
+    }
+
+    // Signs up one shared account and fills its lists; these requests are recorded by the seeding client only
+    static Account seed(ApiClient api, LoadTestConfig config, String username) {
+        ShopperScenario.signUp(api, username);
+        List<Long> listIds = ShopperScenario.createLists(api, config);
+        return new Account(api.token(), listIds);
+    }
+
+    record Account(String token, List<Long> listIds) {
+    }
+}
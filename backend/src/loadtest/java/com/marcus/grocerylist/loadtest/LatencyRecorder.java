@@ -0,0 +1,94 @@
+package com.marcus.grocerylist.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects raw latencies per endpoint (keyed by method and route template) and summarizes them
+ * once the run is over. Keeping every sample is fine at load-test volumes and gives exact percentiles.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean success) {
+        samples.computeIfAbsent(endpoint, e -> new Samples()).add(nanos, success);
+    }
+
+    List<Summary> summarize(double elapsedSeconds) {
+        List<Summary> summaries = new ArrayList<>();
+        samples.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> summaries.add(entry.getValue().summarize(entry.getKey(), elapsedSeconds)));
+        return summaries;
+    }
+
+    // Every endpoint pooled together, used to compare whole runs by their tail
+    Summary overall(double elapsedSeconds) {
+        Samples all = new Samples();
+        samples.values().forEach(all::addAll);
+        return all.summarize("all endpoints", elapsedSeconds);
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void add(long value, boolean success) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples other) {
+            synchronized (other) {
+                for (int i = 0; i < other.count; i++) {
+                    add(other.nanos[i], true);
+                }
+                errors += other.errors;
+            }
+        }
+
+        synchronized Summary summarize(String endpoint, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return new Summary(endpoint, count, errors, count / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    count == 0 ? 0 : sorted[count - 1] / 1_000_000.0);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    record Summary(String endpoint, int requests, int errors, double requestsPerSecond,
+                   double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("endpoint", endpoint);
+            map.put("requests", requests);
+            map.put("errors", errors);
+            map.put("requestsPerSecond", requestsPerSecond);
+            map.put("p50Millis", p50Millis);
+            map.put("p95Millis", p95Millis);
+            map.put("p99Millis", p99Millis);
+            map.put("maxMillis", maxMillis);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.marcus.grocerylist.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run settings, given as key=value program arguments, for example "users=50 itemsPerList=200".
+ * With baseUrl set the scenarios target an already running server instead of booting one.
+ * scenario=browser swaps sign-up-per-user shoppers for many clients sharing a few seeded accounts,
+ * and threadModes=platform,virtual boots the server once per mode to compare them on the same load.
+ */
+final class LoadTestConfig {
+
+    int users = 20;
+    int listsPerUser = 3;
+    int itemsPerList = 100;
+    int rounds = 5;
+    int threads = 20;
+    String scenario = "shopper";
+    int accounts = 10;
+    List<String> threadModes = List.of("platform");
+    String baseUrl;
+    String datasourceUrl = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+    String datasourceUsername = "sa";
+    String datasourcePassword = "";
+    String resultFile = "target/loadtest-result.json";
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig();
+        config.users = intValue(values, "users", config.users);
+        config.listsPerUser = intValue(values, "listsPerUser", config.listsPerUser);
+        config.itemsPerList = intValue(values, "itemsPerList", config.itemsPerList);
+        config.rounds = intValue(values, "rounds", config.rounds);
+        config.threads = intValue(values, "threads", config.users);
+        config.scenario = values.getOrDefault("scenario", config.scenario);
+        config.accounts = intValue(values, "accounts", config.accounts);
+        if (values.containsKey("threadModes")) {
+            config.threadModes = Arrays.asList(values.get("threadModes").split(","));
+        }
+        if (!config.scenario.equals("shopper") && !config.scenario.equals("browser")) {
+            throw new IllegalArgumentException("scenario must be shopper or browser, got: " + config.scenario);
+        }
+        for (String mode : config.threadModes) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("threadModes must be platform and/or virtual, got: " + mode);
+            }
+        }
+        config.baseUrl = values.getOrDefault("baseUrl", config.baseUrl);
+        config.datasourceUrl = values.getOrDefault("datasourceUrl", config.datasourceUrl);
+        config.datasourceUsername = values.getOrDefault("datasourceUsername", config.datasourceUsername);
+        config.datasourcePassword = values.getOrDefault("datasourcePassword", config.datasourcePassword);
+        config.resultFile = values.getOrDefault("resultFile", config.resultFile);
+        return config;
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @Override
+    public String toString() {
+        return "scenario=" + scenario + " users=" + users + " threads=" + threads
+                + (scenario.equals("browser") ? " accounts=" + accounts : "")
+                + " threadModes=" + String.join(",", threadModes) + " listsPerUser=" + listsPerUser
+                + " itemsPerList=" + itemsPerList + " rounds=" + rounds
+                + (baseUrl != null ? " baseUrl=" + baseUrl : " datasource=" + datasourceUrl);
+    }
+}
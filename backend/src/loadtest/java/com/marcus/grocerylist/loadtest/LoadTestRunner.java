@@ -0,0 +1,190 @@
+package com.marcus.grocerylist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.marcus.grocerylist.GrocerylistApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the REST API with concurrent clients and reports p50/p95/p99 latency and requests/second
+ * per endpoint. Unless baseUrl is given, the application is booted in-process on a random port,
+ * on H2 by default or on the database named by datasourceUrl, once for each requested thread mode.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        System.out.println("Load test: " + config);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        List<String> modes = config.baseUrl != null ? List.of("external") : config.threadModes;
+        List<Run> runs = new ArrayList<>();
+        boolean failed = false;
+        for (String mode : modes) {
+            if (mode.equals("virtual") && Runtime.version().feature() < 21) {
+                System.out.println("\nSkipping virtual threads: they need Java 21+, this is " + Runtime.version());
+                continue;
+            }
+            ConfigurableApplicationContext context = null;
+            String baseUrl = config.baseUrl;
+            if (baseUrl == null) {
+                context = start(config, mode.equals("virtual"));
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                Run run = run(mode, config, baseUrl, httpClient, objectMapper);
+                print(run);
+                runs.add(run);
+                failed |= run.failedClients() > 0;
+            } finally {
+                if (context != null) {
+                    context.close();
+                }
+            }
+        }
+        if (runs.size() > 1) {
+            printComparison(runs);
+        }
+        write(config, runs, objectMapper);
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static Run run(String mode, LoadTestConfig config, String baseUrl,
+                           HttpClient httpClient, ObjectMapper objectMapper) throws Exception {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        List<BrowserScenario.Account> accounts = new ArrayList<>();
+        if (config.scenario.equals("browser")) {
+            // Seeding is not part of the measurement, so it gets a recorder of its own
+            ApiClient seeder = new ApiClient(httpClient, objectMapper, new LatencyRecorder(), baseUrl);
+            for (int a = 0; a < config.accounts; a++) {
+                accounts.add(BrowserScenario.seed(seeder, config, "browser-" + runId + "-" + a));
+            }
+        }
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicInteger failedClients = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int u = 0; u < config.users; u++) {
+                ApiClient api = new ApiClient(httpClient, objectMapper, recorder, baseUrl);
+                Runnable scenario = config.scenario.equals("browser")
+                        ? new BrowserScenario(api, config, accounts.get(u % accounts.size()), u)
+                        : new ShopperScenario(api, config, "shopper-" + runId + "-" + u);
+                clients.add(executor.submit(scenario));
+            }
+            for (Future<?> client : clients) {
+                try {
+                    client.get();
+                } catch (Exception e) {
+                    failedClients.incrementAndGet();
+                    System.err.println("Client failed: " + e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Run(mode, elapsedSeconds, recorder.summarize(elapsedSeconds),
+                recorder.overall(elapsedSeconds), failedClients.get());
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestConfig config, boolean virtualThreads) {
+        boolean h2 = config.datasourceUrl.startsWith("jdbc:h2:");
+        return new SpringApplicationBuilder(GrocerylistApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + config.datasourceUrl,
+                "--spring.datasource.username=" + config.datasourceUsername,
+                "--spring.datasource.password=" + config.datasourcePassword,
+                "--spring.datasource.driver-class-name=" + (h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.jpa.hibernate.ddl-auto=" + (h2 ? "create-drop" : "update"),
+                "--spring.jpa.show-sql=false",
+                // The database concurrency gate follows this switch
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--jwt.secret=load-test-secret-key-that-is-long-enough-for-hs256",
+                "--actuator.password=load-test",
+                "--logging.level.root=WARN");
+    }
+
+    private static void print(Run run) {
+        System.out.printf("%n[%s threads]%n%-36s %8s %6s %9s %9s %9s %9s %9s%n", run.mode(),
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (LatencyRecorder.Summary s : run.endpoints()) {
+            printRow(s.endpoint(), s);
+        }
+        LatencyRecorder.Summary all = run.overall();
+        System.out.printf("%ntotal %d requests in %.1f s, %.1f req/s%n",
+                all.requests(), run.elapsedSeconds(), all.requestsPerSecond());
+    }
+
+    private static void printComparison(List<Run> runs) {
+        System.out.printf("%n[comparison]%n%-36s %8s %6s %9s %9s %9s %9s %9s%n",
+                "threads", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Run run : runs) {
+            printRow(run.mode(), run.overall());
+        }
+    }
+
+    private static void printRow(String label, LatencyRecorder.Summary s) {
+        System.out.printf("%-36s %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                label, s.requests(), s.errors(), s.requestsPerSecond(),
+                s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis());
+    }
+
+    private static void write(LoadTestConfig config, List<Run> runs, ObjectMapper objectMapper) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", Map.of(
+                "scenario", config.scenario,
+                "users", config.users,
+                "threads", config.threads,
+                "accounts", config.accounts,
+                "listsPerUser", config.listsPerUser,
+                "itemsPerList", config.itemsPerList,
+                "rounds", config.rounds));
+        result.put("runs", runs.stream().map(Run::toMap).toList());
+
+        File file = new File(config.resultFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+        System.out.println("Results written to " + file.getPath());
+    }
+
+    private record Run(String mode, double elapsedSeconds, List<LatencyRecorder.Summary> endpoints,
+                       LatencyRecorder.Summary overall, int failedClients) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("threads", mode);
+            map.put("elapsedSeconds", elapsedSeconds);
+            map.put("failedClients", failedClients);
+            map.put("overall", overall.toMap());
+            map.put("endpoints", endpoints.stream().map(LatencyRecorder.Summary::toMap).toList());
+            return map;
+        }
+    }
+}
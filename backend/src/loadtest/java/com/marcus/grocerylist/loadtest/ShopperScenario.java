@@ -0,0 +1,98 @@
+package com.marcus.grocerylist.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one shopper does: sign up and log in, create lists and fill them in bulk, then repeatedly
+ * read them back and tick items off (one by one and as a batch), and finally clear half of each list.
+ */
+final class ShopperScenario implements Runnable {
+
+    private static final int SINGLE_TOGGLES_PER_ROUND = 5;
+
+    private final ApiClient api;
+    private final LoadTestConfig config;
+    private final String username;
+
+    ShopperScenario(ApiClient api, LoadTestConfig config, String username) {
+        this.api = api;
+        this.config = config;
+        this.username = username;
+    }
+
+    @Override
+    public void run() {
+        signUp(api, username);
+        List<Long> listIds = createLists(api, config);
+
+        for (int round = 0; round < config.rounds; round++) {
+            boolean completed = round % 2 == 0;
+            api.get("GET /lists", "/lists");
+            for (Long listId : listIds) {
+                JsonNode items = api.get("GET /items/list/{listId}", "/items/list/" + listId);
+                api.get("GET /items/list/{listId}?limit", "/items/list/" + listId + "?limit=50");
+
+                List<Map<String, Object>> patches = new ArrayList<>();
+                int toggled = 0;
+                for (JsonNode item : items) {
+                    long itemId = item.get("id").asLong();
+                    if (toggled < SINGLE_TOGGLES_PER_ROUND) {
+                        api.put("PUT /items/{id}", "/items/" + itemId, Map.of(
+                                "name", item.get("name").asText(),
+                                "completed", completed,
+                                "quantity", item.get("quantity").asInt()));
+                        toggled++;
+                    } else {
+                        patches.add(Map.of("id", itemId, "completed", completed));
+                    }
+                }
+                if (!patches.isEmpty()) {
+                    api.patch("PATCH /items/batch", "/items/batch", Map.of("items", patches));
+                }
+            }
+        }
+
+        for (Long listId : listIds) {
+            JsonNode items = api.get("GET /items/list/{listId}", "/items/list/" + listId);
+            List<Long> toDelete = new ArrayList<>();
+            for (int i = 0; i < items.size(); i += 2) {
+                toDelete.add(items.get(i).get("id").asLong());
+            }
+            if (!toDelete.isEmpty()) {
+                api.delete("DELETE /items/batch-delete", "/items/batch-delete", toDelete);
+            }
+            api.get("GET /items/list/{listId}", "/items/list/" + listId);
+        }
+    }
+
+    // Registers and logs in, leaving the client authenticated as the new user
+    static void signUp(ApiClient api, String username) {
+        String email = username + "@loadtest.example.com";
+        String password = "load-test-password";
+        api.post("POST /auth/register", "/auth/register",
+                Map.of("username", username, "password", password, "email", email));
+        JsonNode auth = api.post("POST /auth/login", "/auth/login", Map.of("email", email, "password", password));
+        api.setToken(auth.get("token").asText());
+    }
+
+    static List<Long> createLists(ApiClient api, LoadTestConfig config) {
+        List<Long> listIds = new ArrayList<>();
+        for (int l = 0; l < config.listsPerUser; l++) {
+            JsonNode list = api.post("POST /lists", "/lists", Map.of("name", "List " + l));
+            long listId = list.get("id").asLong();
+            listIds.add(listId);
+
+            List<String> names = new ArrayList<>(config.itemsPerList);
+            for (int i = 0; i < config.itemsPerList; i++) {
+                names.add("Item " + i);
+            }
+            api.post("POST /items/batch-create", "/items/batch-create",
+                    Map.of("groceryListId", listId, "itemNames", names));
+        }
+        return listIds;
+    }
+}
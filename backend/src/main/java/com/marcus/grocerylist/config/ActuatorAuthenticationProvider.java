@@ -0,0 +1,62 @@
+package com.marcus.grocerylist.config;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checks the metrics scraper's HTTP Basic credentials against the single configured account. The
+ * password is a machine credential from the environment, not a user's, so it is compared in constant
+ * time instead of through bcrypt, which would cost every scrape a full hash on the request thread.
+ * Without a password the account does not exist and every attempt is rejected.
+ */
+public class ActuatorAuthenticationProvider implements AuthenticationProvider {
+    private final String username;
+    private final byte[] usernameDigest;
+    private final byte[] passwordDigest;
+
+    public ActuatorAuthenticationProvider(String username, String password) {
+        this.username = username;
+        this.usernameDigest = digest(username);
+        this.passwordDigest = password == null || password.isEmpty() ? null : digest(password);
+    }
+
+    public boolean isEnabled() {
+        return passwordDigest != null;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        // Both digests are always compared, so the time taken does not tell which one was wrong
+        boolean usernameMatches = MessageDigest.isEqual(usernameDigest, digest(authentication.getName()));
+        boolean passwordMatches = isEnabled() && credentials != null
+                && MessageDigest.isEqual(passwordDigest, digest(credentials.toString()));
+        if (!(usernameMatches & passwordMatches)) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(username, null,
+                AuthorityUtils.createAuthorityList("ROLE_ACTUATOR"));
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    // Fixed-length digests keep MessageDigest.isEqual from returning early on a length mismatch
+    private static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
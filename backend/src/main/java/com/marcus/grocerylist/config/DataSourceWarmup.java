@@ -0,0 +1,87 @@
+package com.marcus.grocerylist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens the pool connections at startup, so the first requests on a freshly scaled-out instance
+ * do not each pay for a TCP and TLS handshake and authentication. Runners finish before the
+ * instance reports ready, so no traffic is routed here until the pool is full or
+ * datasource.warmup.timeout has passed.
+ *
+ * Doubles as a self-check: if the primary does not hand out a valid connection, startup fails
+ * instead of the instance taking traffic it cannot serve. Replicas that fail are only logged,
+ * since reads fall back to the primary anyway.
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.warmup.enabled", havingValue = "true")
+public class DataSourceWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataSourceWarmup.class);
+
+    private final DataSource dataSource;
+    private final ObjectProvider<ReplicaRouter> replicaRouter;
+    private final Duration timeout;
+
+    public DataSourceWarmup(DataSource dataSource, ObjectProvider<ReplicaRouter> replicaRouter,
+                            @Value("${datasource.warmup.timeout:30s}") Duration timeout) {
+        this.dataSource = dataSource;
+        this.replicaRouter = replicaRouter;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException, InterruptedException {
+        ReplicaRouter router = replicaRouter.getIfAvailable();
+        List<HikariDataSource> pools;
+        if (router != null) {
+            pools = router.pools();
+        } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            pools = List.of(dataSource.unwrap(HikariDataSource.class));
+        } else {
+            log.info("Skipping connection pool warm-up, the DataSource is not a Hikari pool");
+            return;
+        }
+
+        warm(pools.get(0));
+        for (HikariDataSource replica : pools.subList(1, pools.size())) {
+            try {
+                warm(replica);
+            } catch (SQLException | IllegalStateException e) {
+                log.warn("Replica pool {} failed its startup check: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+    }
+
+    private void warm(HikariDataSource pool) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        // The first connection starts the pool, whose own threads then open the rest up to minimum-idle
+        try (Connection connection = pool.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, timeout.toSeconds()))) {
+                throw new IllegalStateException("Pool " + pool.getPoolName() + " returned an invalid connection");
+            }
+        }
+        HikariPoolMXBean stats = pool.getHikariPoolMXBean();
+        long deadline = start + timeout.toNanos();
+        while (stats.getTotalConnections() < pool.getMinimumIdle() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        log.info("Pool {} warmed up with {} of {} connections in {} ms", pool.getPoolName(),
+                stats.getTotalConnections(), pool.getMaximumPoolSize(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
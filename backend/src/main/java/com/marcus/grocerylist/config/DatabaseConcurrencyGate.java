@@ -0,0 +1,126 @@
+package com.marcus.grocerylist.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Puts a fair semaphore in front of the connection pool. On virtual threads thousands of requests
+ * can reach the repositories at once; without the gate they all pile onto Hikari's hand-off queue and
+ * the unlucky ones time out. With it they wait in arrival order and only as many threads as there
+ * are permits ever ask the pool for a connection. On by default whenever virtual threads are.
+ */
+@Component
+@ConditionalOnProperty(name = "db.gate.enabled", havingValue = "true")
+public class DatabaseConcurrencyGate implements BeanPostProcessor, MeterBinder {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final Duration acquireTimeout;
+
+    public DatabaseConcurrencyGate(Environment environment) {
+        // Defaults to the pool size so a permit always means a connection is, or will shortly be, free
+        this.maxPermits = environment.getProperty("db.gate.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        this.acquireTimeout = environment.getProperty("db.gate.acquire-timeout", Duration.class, Duration.ofSeconds(60));
+        this.permits = new Semaphore(maxPermits, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof GatedDataSource)) {
+            return new GatedDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.gate.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads queued for a database permit")
+                .register(registry);
+        Gauge.builder("db.gate.in.use", permits, p -> maxPermits - p.availablePermits())
+                .description("Database permits currently held")
+                .register(registry);
+    }
+
+    private class GatedDataSource extends DelegatingDataSource {
+
+        GatedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return releasing(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "Timed out after " + acquireTimeout.toMillis() + "ms waiting for a database permit");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+            }
+        }
+
+        // The permit goes back when the connection is returned to the pool, exactly once
+        private Connection releasing(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
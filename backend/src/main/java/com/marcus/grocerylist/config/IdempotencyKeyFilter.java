@@ -0,0 +1,237 @@
+package com.marcus.grocerylist.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Honours an Idempotency-Key header on the create endpoints, so a client retrying over a bad network
+ * gets the original response back instead of a second row. Keys are scoped to the user and path.
+ *
+ * Successful responses are kept in a Caffeine cache bounded by idempotency.max-size (bytes) and
+ * idempotency.ttl; failures are not kept, so a retry after an error runs again. A retry that arrives
+ * while the first attempt is still running gets 409, and reusing a key for a different body gets 422.
+ * The body is buffered to fingerprint it, so one over idempotency.max-body-size gets 413 unread.
+ * Runs after Spring Security, so the user is known. Keys are per instance.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter implements MeterBinder {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> PATHS = Set.of("/items", "/items/batch-create", "/lists");
+
+    private final Cache<String, StoredResponse> responses;
+    private final int maxBodySize;
+    private Counter replays;
+
+    public IdempotencyKeyFilter(@Value("${idempotency.ttl:24h}") Duration ttl,
+                                @Value("${idempotency.max-size:16MB}") DataSize maxSize,
+                                @Value("${idempotency.max-body-size:1MB}") DataSize maxBodySize) {
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+        this.responses = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, StoredResponse response) -> key.length() + response.size())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        String user = currentUser();
+        if (user == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // A declared length is refused before reading; a chunked body is read one byte past the cap at most
+        byte[] body = request.getContentLengthLong() > maxBodySize
+                ? null : request.getInputStream().readNBytes(maxBodySize + 1);
+        if (body == null || body.length > maxBodySize) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "Requests with an " + HEADER + " are limited to " + maxBodySize + " bytes");
+            return;
+        }
+        String cacheKey = user + ' ' + request.getRequestURI() + ' ' + key;
+        StoredResponse inFlight = StoredResponse.inFlight(fingerprint(body));
+        StoredResponse existing = responses.asMap().putIfAbsent(cacheKey, inFlight);
+        if (existing != null) {
+            replay(existing, inFlight.fingerprint(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapped = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapped);
+            if (HttpStatus.valueOf(wrapped.getStatus()).is2xxSuccessful()) {
+                responses.put(cacheKey, new StoredResponse(inFlight.fingerprint(), wrapped.getStatus(),
+                        wrapped.getContentType(), wrapped.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                responses.asMap().remove(cacheKey, inFlight);
+            }
+            wrapped.copyBodyToResponse();
+        }
+    }
+
+    private void replay(StoredResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), HEADER + " was already used for a different request");
+        } else if (stored.isInFlight()) {
+            response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + HEADER + " is still in progress");
+        } else {
+            if (replays != null) {
+                replays.increment();
+            }
+            response.setStatus(stored.status());
+            if (stored.contentType() != null) {
+                response.setContentType(stored.contentType());
+            }
+            response.setHeader(REPLAYED_HEADER, "true");
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // status 0 marks a request that is still running
+    private record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+        static StoredResponse inFlight(String fingerprint) {
+            return new StoredResponse(fingerprint, 0, null, new byte[0]);
+        }
+
+        boolean isInFlight() {
+            return status == 0;
+        }
+
+        int size() {
+            return fingerprint.length() + body.length + 64;
+        }
+    }
+
+    // The body is read up front for the fingerprint, so the controller is handed a copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException(
+                            "Async reads are not supported for a body replayed by " + IdempotencyKeyFilter.class.getSimpleName());
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "idempotency-keys");
+        replays = Counter.builder("idempotency.replays")
+                .description("Requests answered from a stored response because their Idempotency-Key was seen before")
+                .register(registry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.marcus.grocerylist.config;
+
+import com.marcus.grocerylist.service.PasswordHashingExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Password hashes are stored as {bcrypt}$2a$NN$..., with NN calibrated at startup to take about
+ * security.password.bcrypt.target-duration on this machine (never below the old default of 10).
+ * Hashes without the prefix, or with a lower cost, still match and are rewritten on the next
+ * successful login. All hashing goes through the {@link PasswordHashingExecutor}.
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final String BCRYPT = "bcrypt";
+    private static final int MIN_CALIBRATED_STRENGTH = 10;
+    private static final int MAX_CALIBRATED_STRENGTH = 14;
+
+    // 0 means calibrate; set it to pin the cost, e.g. to keep it stable across a fleet
+    @Value("${security.password.bcrypt.strength:0}")
+    private int strength;
+
+    @Value("${security.password.bcrypt.target-duration:200ms}")
+    private Duration targetDuration;
+
+    private volatile int cost;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+        cost = strength > 0 ? strength : calibrate(targetDuration);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        // Hashes written before the {id} prefix was introduced are plain bcrypt
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordHashingExecutor.offload(delegating);
+    }
+
+    @Bean
+    public MeterBinder bcryptCostMetric() {
+        return registry -> Gauge.builder("security.password.bcrypt.cost", () -> cost)
+                .description("bcrypt cost used for new password hashes")
+                .register(registry);
+    }
+
+    // Each extra round doubles the work, so one measurement at the floor is enough to extrapolate
+    static int calibrate(Duration target) {
+        BCryptPasswordEncoder floor = new BCryptPasswordEncoder(MIN_CALIBRATED_STRENGTH);
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            floor.encode("calibration");
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+        int cost = MIN_CALIBRATED_STRENGTH;
+        while (cost < MAX_CALIBRATED_STRENGTH && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            cost++;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,29 @@
+package com.marcus.grocerylist.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Derives spring.datasource.hikari.maximum-pool-size from the number of cores when
+ * datasource.pool.connections-per-core is set and the size itself is not. Done on the Environment
+ * rather than on the pool so everything that reads the size (the pools, DatabaseConcurrencyGate)
+ * sees the same number. Added last, so any explicit setting still wins.
+ */
+public class PoolSizingEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    static final String POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Integer perCore = environment.getProperty("datasource.pool.connections-per-core", Integer.class);
+        if (perCore == null || environment.containsProperty(POOL_SIZE)) {
+            return;
+        }
+        int spare = environment.getProperty("datasource.pool.spare-connections", Integer.class, 0);
+        int size = Runtime.getRuntime().availableProcessors() * perCore + spare;
+        environment.getPropertySources().addLast(new MapPropertySource("derivedPoolSize", Map.of(POOL_SIZE, size)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.marcus.grocerylist.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets a @Transactional(readOnly = true) method run on a read replica when replica routing is
+ * configured. Everything else, including Spring Data's own read-only transactions, stays on the
+ * primary. Only for reads that may be up to datasource.replica.max-lag old: nothing that is paired
+ * with an ETag, a sync watermark, an ownership check or an authentication decision. A method that loads
+ * cached entities must set CacheMode.IGNORE on its session, or replica rows end up in the shared
+ * second-level cache.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
@@ -0,0 +1,19 @@
+package com.marcus.grocerylist.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Marks the thread while a @ReplicaRead method runs. The connection is only fetched at the first
+ * statement, inside the method, so it does not matter whether this runs inside or outside the
+ * transaction interceptor. Registered by ReplicaRoutingConfig, so it costs nothing without replicas.
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.marcus.grocerylist.config.ReplicaRead)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        return ReplicaRouter.allowingReplica(joinPoint::proceed);
+    }
+}
@@ -0,0 +1,173 @@
+package com.marcus.grocerylist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions started by a @ReplicaRead method to read replicas and everything
+ * else to the primary. A replica is used only while its last lag check succeeded and reported no
+ * more than datasource.replica.max-lag; otherwise, and when a replica refuses a connection, reads
+ * go to the primary. Replicas that are usable take turns.
+ *
+ * Replicas are opt-in per method because most reads here make promises a lagging copy would
+ * break: ETags come from ListVersionCache, /sync hands out watermarks, and ownership and
+ * principal lookups must see the latest commit.
+ *
+ * The decision is made when the first statement needs a connection, which is why the DataSource
+ * handed to JPA is wrapped in a LazyConnectionDataSourceProxy: by then Spring has marked the
+ * transaction read-only.
+ */
+public class ReplicaRouter implements MeterBinder, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+    private static final ThreadLocal<Boolean> replicaAllowed = ThreadLocal.withInitial(() -> false);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final DataSource routingDataSource = new RoutingDataSource();
+
+    public ReplicaRouter(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.lagQuery = lagQuery;
+        replicaPools.forEach(pool -> replicas.add(new Replica(pool)));
+        checkLag();
+    }
+
+    public DataSource routingDataSource() {
+        return routingDataSource;
+    }
+
+    // Primary first
+    public List<HikariDataSource> pools() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        pools.add(primary);
+        replicas.forEach(replica -> pools.add(replica.pool));
+        return pools;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:PT2S}",
+            initialDelayString = "${datasource.replica.lag-check-interval:PT2S}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean wasUsable = replica.usable;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                result.next();
+                replica.lagSeconds = result.getDouble(1);
+                replica.usable = replica.lagSeconds <= maxLagSeconds;
+            } catch (SQLException | RuntimeException e) {
+                replica.lagSeconds = Double.NaN;
+                replica.usable = false;
+            }
+            if (wasUsable != replica.usable) {
+                log.info("Replica {} is now {} (lag {}s)", replica.pool.getPoolName(),
+                        replica.usable ? "in use" : "skipped", replica.lagSeconds);
+            }
+        }
+    }
+
+    // Called by ReplicaReadAspect around a @ReplicaRead method
+    static <T> T allowingReplica(ReplicaWork<T> work) throws Throwable {
+        boolean previous = replicaAllowed.get();
+        replicaAllowed.set(true);
+        try {
+            return work.run();
+        } finally {
+            replicaAllowed.set(previous);
+        }
+    }
+
+    @FunctionalInterface
+    interface ReplicaWork<T> {
+        T run() throws Throwable;
+    }
+
+    private Replica chooseReplica() {
+        if (replicas.isEmpty() || !replicaAllowed.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.usable) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean usable;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+
+    private final class RoutingDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Replica replica = chooseReplica();
+            if (replica == null) {
+                return primary.getConnection();
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                // Taken out until the next lag check finds it healthy again
+                replica.usable = false;
+                return primary.getConnection();
+            }
+        }
+
+        // Other credentials only make sense against the primary
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag reported by the last check, in seconds")
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(registry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.usable ? 1 : 0)
+                    .description("Whether read-only transactions are currently routed to this replica")
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+}
@@ -0,0 +1,84 @@
+package com.marcus.grocerylist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes @ReplicaRead transactions to the
+ * replicas in datasource.replica.urls (see ReplicaRouter). Without that property nothing here
+ * is created. The primary keeps its spring.datasource.* settings; replicas take the same
+ * spring.datasource.hikari.* settings and credentials unless datasource.replica.username/password
+ * are set, and give up on a connection after datasource.replica.connection-timeout so a dead
+ * replica costs a read little more than that before it falls back.
+ *
+ * Boot only instruments a DataSource bean that unwraps to a single Hikari pool, so the pools here
+ * report hikaricp.* metrics themselves, tagged primary and replica-N unless pool-name is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.urls")
+public class ReplicaRoutingConfig {
+
+    // PostgreSQL standby: zero when everything received has been replayed, otherwise the age of the last replayed commit
+    static final String POSTGRES_LAG_QUERY = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRouter replicaRouter(DataSourceProperties properties, Environment environment,
+                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${datasource.replica.urls}") List<String> urls,
+                                       @Value("${datasource.replica.max-lag:5s}") Duration maxLag,
+                                       @Value("${datasource.replica.connection-timeout:2s}") Duration connectionTimeout,
+                                       @Value("${datasource.replica.lag-query:" + POSTGRES_LAG_QUERY + "}") String lagQuery) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(urls.get(i).strip());
+            replica.setUsername(environment.getProperty("datasource.replica.username", properties.determineUsername()));
+            replica.setPassword(environment.getProperty("datasource.replica.password", properties.determinePassword()));
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replicas.add(replica);
+        }
+        meterRegistry.ifAvailable(registry -> {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.forEach(replica -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        });
+        return new ReplicaRouter(primary, replicas, maxLag, lagQuery);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(replicaRouter.routingDataSource());
+    }
+}
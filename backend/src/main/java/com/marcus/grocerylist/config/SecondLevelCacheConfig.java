@@ -0,0 +1,89 @@
+package com.marcus.grocerylist.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache regions, backed by Caffeine through JCache. Regions are created
+ * here so their size and TTL come from application properties rather than a separate cache
+ * config file. Statistics are kept per region and exported through Micrometer.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String ITEMS_BY_LIST_REGION = "items-by-list";
+
+    // Hibernate's default names for the query result and table timestamp regions
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${cache.l2.entity.ttl:10m}")
+    private Duration entityTtl;
+
+    @Value("${cache.l2.entity.max-size:10000}")
+    private long entityMaxSize;
+
+    @Value("${cache.l2.query.ttl:1m}")
+    private Duration queryTtl;
+
+    @Value("${cache.l2.query.max-size:2000}")
+    private long queryMaxSize;
+
+    // Each application context gets its own manager, so test contexts with different settings don't share regions
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("grocerylist-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(GroceryList.class.getName(), region(entityTtl, entityMaxSize));
+        cacheManager.createCache(Item.class.getName(), region(entityTtl, entityMaxSize));
+        cacheManager.createCache(ITEMS_BY_LIST_REGION, region(queryTtl, queryMaxSize));
+        cacheManager.createCache(QUERY_RESULTS_REGION, region(queryTtl, queryMaxSize));
+        // Timestamps decide whether a cached query is stale, so they must outlive every query result
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, region(null, 0));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // Hit, miss and eviction counts per region, read from the JCache statistics MBeans
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region));
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(Duration ttl, long maxSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        if (maxSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
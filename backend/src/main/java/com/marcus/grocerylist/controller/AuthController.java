@@ -1,11 +1,13 @@
 package com.marcus.grocerylist.controller;
 
 import com.marcus.grocerylist.dto.LoginRequest;
-import com.marcus.grocerylist.jwt.JwtUtil;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.dto.RegistrationRequest;
 import com.marcus.grocerylist.dto.AuthResponse;
+import com.marcus.grocerylist.dto.RefreshTokenRequest;
+import com.marcus.grocerylist.service.TokenService;
 import com.marcus.grocerylist.service.UserService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,15 +26,15 @@ public class AuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
     @Autowired
     private UserService userService;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenService tokenService;
+
     @PostMapping("/register")
     public ResponseEntity<Map<String, String>> register(@RequestBody RegistrationRequest request) {
             User newUser = new User(request.getUsername(), request.getPassword(), request.getEmail());
@@ -43,18 +45,30 @@ public class AuthController {
 
     @PostMapping("/login")
     public AuthResponse login(@RequestBody LoginRequest request) {
-        String username = userService.findByEmail(request.getEmail())
-                .map(User::getUsername) //same as .map(user -> user.getUsername())
+        User user = userService.findByEmail(request.getEmail())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + request.getEmail()));
 
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
-                        username,
+                        user.getUsername(),
                         request.getPassword()
                 )
         );
 
-        String token = jwtUtil.generateToken(authentication.getName());
-        return new AuthResponse(token);
+        return tokenService.issue(authentication.getName(), user.getId());
+    }
+
+    // Trades a refresh token for a new access/refresh pair; the old refresh token stops working
+    @PostMapping("/refresh")
+    public AuthResponse refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return tokenService.refresh(request.getRefreshToken());
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                       @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        tokenService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.marcus.grocerylist.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * If-None-Match handling for the read endpoints. The ETag is computed before anything is loaded,
+ * so a match ends the request with a 304 and no query for the body.
+ */
+final class ConditionalGet {
+
+    // Without an explicit value Spring Security sends no-store, and clients would never have a body to revalidate
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Sets the ETag and Cache-Control headers and returns true when the client's copy is current.
+     * The caller then returns null, leaving the 304 that has already been written.
+     */
+    static boolean notModified(ServletWebRequest request, String etag) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(etag);
+    }
+}
@@ -1,17 +1,20 @@
 package com.marcus.grocerylist.controller;
 
+import com.marcus.grocerylist.dto.GroceryListSummary;
+import com.marcus.grocerylist.dto.GroceryListUpdateRequest;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.service.GroceryListService;
+import com.marcus.grocerylist.service.ListVersionCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import com.marcus.grocerylist.service.UserService;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,11 +27,15 @@ public class GroceryListController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ListVersionCache listVersionCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Resolved from the principal the JWT filter put in the security context, no query involved
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return userService.getCurrentUserReference();
     }
 
     @PostMapping
@@ -54,15 +61,40 @@ public class GroceryListController {
         return ResponseEntity.noContent().build();
     }
 
+    // Same paging options and ETag handling as GET /items/list/{listId}. Each list comes with its item
+    // and completed counts, so clients can show progress without fetching any items.
     @GetMapping
-    public ResponseEntity<List<GroceryList>> getListsByCurrentUser() {
+    public ResponseEntity<List<GroceryListSummary>> getListsByCurrentUser(@RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          ServletWebRequest request) {
         User currentUser = getCurrentUser();
-        List<GroceryList> lists = groceryListService.findListsByUser(currentUser);
+
+        if (ConditionalGet.notModified(request, listVersionCache.listsEtag(currentUser.getId()))) {
+            return null;
+        }
+
+        if (KeysetPagination.isRequested(limit, cursor)) {
+            int pageSize = KeysetPagination.pageSize(limit);
+            List<GroceryListSummary> rows = groceryListService.getListSummariesPage(currentUser.getId(),
+                    KeysetPagination.decodeCursor(cursor), pageSize + 1);
+            return KeysetPagination.page(rows, pageSize, groceryListService.countListsByUser(currentUser.getId()),
+                    GroceryListSummary::getId);
+        }
+
+        List<GroceryListSummary> lists = groceryListService.findListSummaries(currentUser.getId());
         return ResponseEntity.ok(lists);
     }
 
+    @GetMapping(produces = KeysetPagination.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamListsByCurrentUser() {
+        User currentUser = getCurrentUser();
+        return KeysetPagination.<GroceryListSummary>stream(objectMapper,
+                row -> groceryListService.streamListSummaries(currentUser.getId(), row));
+    }
+
+    // Versioned like PUT /items/{id}
     @PutMapping("/{id}")
-    public ResponseEntity<GroceryList> updateList(@PathVariable Long id, @RequestBody GroceryList updatedList) {
+    public ResponseEntity<GroceryList> updateList(@PathVariable Long id, @RequestBody GroceryListUpdateRequest updatedList) {
         User currentUser = getCurrentUser();
 
         GroceryList existingList = groceryListService.getListById(id)
@@ -72,9 +104,7 @@ public class GroceryListController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to update this list.");
         }
 
-        existingList.setName(updatedList.getName());
-
-        GroceryList savedList = groceryListService.saveList(existingList);
+        GroceryList savedList = groceryListService.updateList(existingList, updatedList);
         return ResponseEntity.ok(savedList);
     }
 
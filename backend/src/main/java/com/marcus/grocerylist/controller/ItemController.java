@@ -2,21 +2,33 @@ package com.marcus.grocerylist.controller;
 
 
 import com.marcus.grocerylist.dto.ItemCreateRequest;
+import com.marcus.grocerylist.dto.ItemSearchHit;
+import com.marcus.grocerylist.dto.ItemUpdateRequest;
+import com.marcus.grocerylist.dto.ItemVersion;
+import com.marcus.grocerylist.dto.ListChangeEvent;
 import com.marcus.grocerylist.dto.ItemsBatchCreateRequest;
+import com.marcus.grocerylist.dto.ItemsBatchPatchRequest;
+import com.marcus.grocerylist.dto.ItemPatchRequest;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.model.Item;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.service.ItemService;
+import com.marcus.grocerylist.service.ItemWriteBehind;
 import com.marcus.grocerylist.service.GroceryListService;
+import com.marcus.grocerylist.service.ListEventBus;
+import com.marcus.grocerylist.service.ListVersionCache;
+import com.marcus.grocerylist.service.OwnershipService;
 import com.marcus.grocerylist.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
 import java.util.List;
@@ -25,6 +37,14 @@ import java.util.Map;
 @RestController
 @RequestMapping("/items")
 public class ItemController {
+    private static final int MAX_SEARCH_LENGTH = 100;
+    private static final int MAX_SEARCH_OFFSET = 1000;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final String PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    public static final String PREFERENCE_APPLIED = "Preference-Applied";
+
     @Autowired
     private ItemService itemService;
 
@@ -32,12 +52,47 @@ public class ItemController {
     private GroceryListService groceryListService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private OwnershipService ownershipService;
+    @Autowired
+    private ListVersionCache listVersionCache;
+    @Autowired
+    private ListEventBus listEventBus;
+    @Autowired
+    private ItemWriteBehind itemWriteBehind;
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    // Resolved from the principal the JWT filter put in the security context, no query involved
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return userService.getCurrentUserReference();
+    }
+
+    private void checkListOwner(Long listId, User currentUser, String forbiddenMessage) {
+        Long ownerId = ownershipService.findListOwnerId(listId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "GroceryList not found"));
+
+        if (!ownerId.equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenMessage);
+        }
+    }
+
+    private void publish(Long listId, List<Long> changed, List<Long> deleted) {
+        listEventBus.publish(new ListChangeEvent(listId, changed, deleted, false));
+    }
+
+    // Deletes and batch writes only carry item ids; the list of each is looked up only if someone is listening
+    private Map<Long, List<Long>> idsByListForEvents(List<Long> itemIds) {
+        return listEventBus.hasSubscribers() ? itemService.groupIdsByList(itemIds) : Map.of();
+    }
+
+    private void checkItemOwner(Long itemId, User currentUser, String forbiddenMessage) {
+        Long ownerId = ownershipService.findItemOwnerId(itemId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
+
+        if (!ownerId.equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, forbiddenMessage);
+        }
     }
 
     @PostMapping
@@ -46,12 +101,9 @@ public class ItemController {
 
         Long listId = itemCreateRequest.getGroceryListId();
 
-        GroceryList groceryList = groceryListService.getListById(listId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "GroceryList not found"));
+        checkListOwner(listId, currentUser, "You do not have permission to add items to this list.");
+        GroceryList groceryList = groceryListService.getReference(listId);
 
-        if (!groceryList.getUser().getId().equals(currentUser.getId())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to add items to this list.");
-        }
         Item newItem = new Item();
         newItem.setName(itemCreateRequest.getName());
         newItem.setGroceryList(groceryList);
@@ -59,6 +111,7 @@ public class ItemController {
         newItem.setQuantity(itemCreateRequest.getQuantity());
 
         Item savedItem = itemService.saveItem(newItem);
+        publish(listId, List.of(savedItem.getId()), List.of());
 
         return new ResponseEntity<>(savedItem, HttpStatus.CREATED);
 
@@ -68,71 +121,176 @@ public class ItemController {
     public ResponseEntity<Void> deleteItem(@PathVariable Long itemId) {
         User currentUser = getCurrentUser();
 
-        Item item = itemService.findById(itemId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
-
-        if (!item.getGroceryList().getUser().getId().equals(currentUser.getId())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to delete this item.");
-        }
+        checkItemOwner(itemId, currentUser, "You do not have permission to delete this item.");
 
+        Map<Long, List<Long>> byList = idsByListForEvents(List.of(itemId));
         itemService.deleteItem(itemId);
+        byList.forEach((listId, ids) -> publish(listId, List.of(), ids));
         return ResponseEntity.noContent().build();
     }
 
+    // Names the caller has used before that start with the prefix, most used first; an empty prefix gives the most used overall
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<String>> suggestItemNames(@RequestParam(defaultValue = "") String prefix,
+                                                         @RequestParam(required = false) Integer limit) {
+        if (prefix.length() > MAX_SEARCH_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "prefix must be at most " + MAX_SEARCH_LENGTH + " characters");
+        }
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        int count = limit == null ? DEFAULT_SUGGESTIONS : Math.min(limit, MAX_SUGGESTIONS);
+        return ResponseEntity.ok(itemService.suggestItemNames(getCurrentUser().getId(), prefix, count));
+    }
+
+    /**
+     * Ranked search over the names of every item in the caller's lists, best match first. Pages with
+     * limit and cursor like the list endpoints, but without X-Total-Count, and only the first
+     * MAX_SEARCH_OFFSET results can be paged through.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ItemSearchHit>> searchItems(@RequestParam String q,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String cursor) {
+        String query = q.strip();
+        if (query.isEmpty() || query.length() > MAX_SEARCH_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must be 1 to " + MAX_SEARCH_LENGTH + " characters");
+        }
+        int pageSize = KeysetPagination.pageSize(limit);
+        long offset = KeysetPagination.decodeCursor(cursor);
+        if (offset < 0 || offset >= MAX_SEARCH_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        int fetch = (int) Math.min(pageSize, MAX_SEARCH_OFFSET - offset);
+        List<ItemSearchHit> rows = itemService.searchItems(getCurrentUser().getId(), query, offset,
+                offset + fetch < MAX_SEARCH_OFFSET ? fetch + 1 : fetch);
+        return KeysetPagination.offsetPage(rows, fetch, offset);
+    }
+
+    // Server-sent events for one list: a "change" event with the ids of changed and deleted items after
+    // every write. Replaces polling GET /items/list/{listId}; clients fetch the rows with GET /sync.
+    @GetMapping(value = "/list/{listId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToList(@PathVariable Long listId) {
+        User currentUser = getCurrentUser();
+
+        checkListOwner(listId, currentUser, "You do not have permission to view items in this list.");
+
+        return listEventBus.subscribe(listId, currentUser.getId());
+    }
+
+    // Without limit/cursor the whole list is returned as before. With them the result is a keyset page
+    // described by the Link and X-Total-Count headers. Both carry an ETag from ListVersionCache.
     @GetMapping("/list/{listId}")
-    public ResponseEntity<List<Item>> getItemsByList(@PathVariable Long listId) {
+    public ResponseEntity<List<Item>> getItemsByList(@PathVariable Long listId,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String cursor,
+                                                     ServletWebRequest request) {
         User currentUser = getCurrentUser();
 
-        GroceryList groceryList = groceryListService.getListById(listId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "GroceryList not found"));
+        checkListOwner(listId, currentUser, "You do not have permission to view items in this list.");
+
+        if (ConditionalGet.notModified(request, listVersionCache.itemsEtag(listId, currentUser.getId()))) {
+            return null;
+        }
 
-        if (!groceryList.getUser().getId().equals(currentUser.getId())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to view items in this list.");
+        if (KeysetPagination.isRequested(limit, cursor)) {
+            int pageSize = KeysetPagination.pageSize(limit);
+            List<Item> rows = itemService.getItemsPage(listId, KeysetPagination.decodeCursor(cursor), pageSize + 1);
+            return KeysetPagination.page(rows, pageSize, itemService.countItemsByListId(listId), Item::getId);
         }
 
         List<Item> items = itemService.getItemsByListId(listId);
         return ResponseEntity.ok(items);
     }
 
+    // Accept: application/x-ndjson streams every row straight off the JDBC cursor, one JSON document per line
+    @GetMapping(value = "/list/{listId}", produces = KeysetPagination.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamItemsByList(@PathVariable Long listId) {
+        User currentUser = getCurrentUser();
+
+        checkListOwner(listId, currentUser, "You do not have permission to view items in this list.");
+
+        return KeysetPagination.<Item>stream(objectMapper, row -> itemService.streamItemsByListId(listId, row));
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody Item updatedItem) {
+    // Send the version from the last read to get a 409 with the current item instead of overwriting someone else's change
+    public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody ItemUpdateRequest updatedItem,
+                                           @RequestHeader(value = PREFER, required = false) String prefer) {
         User currentUser = getCurrentUser();
 
-        Item existingItem = itemService.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
+        checkItemOwner(id, currentUser, "You do not have permission to update this item.");
 
-        if (!existingItem.getGroceryList().getUser().getId().equals(currentUser.getId())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to update this item.");
+        if (prefersWriteBehind(prefer, updatedItem)) {
+            Item queued = queueUpdate(id, updatedItem, currentUser);
+            if (queued != null) {
+                return ResponseEntity.accepted().header(PREFERENCE_APPLIED, RESPOND_ASYNC).body(queued);
+            }
         }
 
-        existingItem.setName(updatedItem.getName());
-        existingItem.setCompleted(updatedItem.isCompleted());
-        existingItem.setQuantity(updatedItem.getQuantity());
-        Item savedItem = itemService.saveItem(existingItem);
+        Item savedItem = itemService.updateItem(id, updatedItem);
+        publish(savedItem.getGroceryList().getId(), List.of(savedItem.getId()), List.of());
         return ResponseEntity.ok(savedItem);
     }
 
+    // Prefer: respond-async opts in to write-behind; versioned updates need the check done now, so they never qualify
+    private boolean prefersWriteBehind(String prefer, ItemUpdateRequest update) {
+        if (prefer == null || update.getVersion() != null || !itemWriteBehind.isEnabled()) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.strip().equalsIgnoreCase(RESPOND_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only completed and quantity are written behind; a rename goes through the normal path. Returns the item
+    // as it will be once written, or null to fall back.
+    private Item queueUpdate(Long id, ItemUpdateRequest update, User currentUser) {
+        Item item = itemService.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found"));
+        if (!item.getName().equals(update.getName())) {
+            return null;
+        }
+        itemWriteBehind.enqueue(id, item.getGroceryList().getId(), currentUser.getId(), item.getVersion(),
+                update.isCompleted(), update.getQuantity());
+        item.setCompleted(update.isCompleted());
+        item.setQuantity(update.getQuantity());
+        return item;
+    }
+
     @DeleteMapping("/batch-delete")
     public ResponseEntity<Map<String, String>> deleteItemsInBatch(@RequestBody List<Long> itemIds){
 
+        Map<Long, List<Long>> byList = idsByListForEvents(itemIds);
         itemService.deleteItemsInBatch(itemIds);
+        byList.forEach((listId, ids) -> publish(listId, List.of(), ids));
         return ResponseEntity.ok(Map.of("message", "Selected items deleted successfully."));
     }
 
+    // Partial updates for many items in one round-trip; ownership of every id is checked before anything is written
+    @PatchMapping("/batch")
+    public ResponseEntity<List<ItemVersion>> patchItemsInBatch(@Valid @RequestBody ItemsBatchPatchRequest request){
+        List<ItemVersion> versions = itemService.patchItemsInBatch(request.getItems());
+        idsByListForEvents(request.getItems().stream().map(ItemPatchRequest::getId).toList())
+                .forEach((listId, ids) -> publish(listId, ids, List.of()));
+        return ResponseEntity.ok(versions);
+    }
+
     @PostMapping("/batch-create")
     public ResponseEntity<Map<String, String>> createItemsInBatch(@Valid @RequestBody ItemsBatchCreateRequest request){
         User currentUser = getCurrentUser();
         Long listId = request.getGroceryListId();
         List<String> itemNames = request.getItemNames();
 
-        GroceryList groceryList = groceryListService.getListById(listId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "GroceryList not found"));
-
-        if(!groceryList.getUser().getId().equals(currentUser.getId())){
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not allowed to manage this list.");
-        }
+        checkListOwner(listId, currentUser, "You are not allowed to manage this list.");
+        GroceryList groceryList = groceryListService.getReference(listId);
 
         itemService.createItemsInBatch(groceryList, itemNames);
+        // The JDBC batch does not return the new ids
+        listEventBus.publish(new ListChangeEvent(listId, List.of(), List.of(), true));
 
         return ResponseEntity.ok(Map.of("message", "Items created"));
     }
@@ -0,0 +1,119 @@
+package com.marcus.grocerylist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Helpers shared by the list endpoints for keyset pagination on the id column and for
+ * the NDJSON streaming mode. The cursor is the last id of the previous page, encoded
+ * so that clients treat it as opaque.
+ */
+final class KeysetPagination {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private KeysetPagination() {
+    }
+
+    static boolean isRequested(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the page response from rows fetched with pageSize + 1, where the extra row
+     * only signals that a next page exists.
+     */
+    static <T> ResponseEntity<List<T>> page(List<T> rows, int pageSize, long total, Function<T, Long> idOf) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", String.valueOf(total));
+
+        List<T> page = rows;
+        if (rows.size() > pageSize) {
+            page = rows.subList(0, pageSize);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit", pageSize)
+                    .replaceQueryParam("cursor", encodeCursor(idOf.apply(page.get(pageSize - 1))))
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    /**
+     * Like page, for ranked results that have no key to resume after: the cursor carries the row
+     * offset of the next page instead of an id.
+     */
+    static <T> ResponseEntity<List<T>> offsetPage(List<T> rows, int pageSize, long offset) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> page = rows;
+        if (rows.size() > pageSize) {
+            page = rows.subList(0, pageSize);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("limit", pageSize)
+                    .replaceQueryParam("cursor", encodeCursor(offset + pageSize))
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    /**
+     * Writes one JSON document per line as rows come off the source, without collecting them first.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> source.accept(row -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
+    }
+}
@@ -0,0 +1,26 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.dto.SyncResponse;
+import com.marcus.grocerylist.service.SyncService;
+import com.marcus.grocerylist.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private UserService userService;
+
+    // since is the watermark from the previous response; omit it for a full snapshot
+    @GetMapping
+    public SyncResponse sync(@RequestParam(required = false) Long since) {
+        return syncService.changesSince(userService.getCurrentUserReference().getId(), since);
+    }
+}
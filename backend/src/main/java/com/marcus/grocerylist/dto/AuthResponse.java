@@ -7,4 +7,7 @@ import lombok.AllArgsConstructor;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Lifetime of the access token in seconds, so clients can refresh ahead of expiry
+    private long expiresIn;
 }
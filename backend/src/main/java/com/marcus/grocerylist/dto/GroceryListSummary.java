@@ -0,0 +1,21 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// A list as returned by GET /lists: the list's own fields plus the counts from its ListSummary
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryListSummary {
+    private Long id;
+    private String name;
+    private long version;
+    private Instant updatedAt;
+    private int itemCount;
+    private int completedCount;
+    private Instant lastModified;
+}
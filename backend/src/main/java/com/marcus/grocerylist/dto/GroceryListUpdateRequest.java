@@ -0,0 +1,11 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.Data;
+
+@Data
+public class GroceryListUpdateRequest {
+    private String name;
+
+    // The version the client last read. Without it the update overwrites whatever is stored.
+    private Long version;
+}
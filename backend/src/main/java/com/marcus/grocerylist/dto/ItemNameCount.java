@@ -0,0 +1,13 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemNameCount {
+    private String name;
+    private long count;
+}
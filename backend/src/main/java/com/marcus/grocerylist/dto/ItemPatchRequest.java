@@ -0,0 +1,21 @@
+package com.marcus.grocerylist.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+// Fields left out of the JSON stay null and are not touched
+@Data
+public class ItemPatchRequest {
+    @NotNull(message = "Item ID cannot be null")
+    private Long id;
+
+    private Boolean completed;
+
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+
+    @Pattern(regexp = "(?s).*\\S.*", message = "Item name cannot be empty")
+    private String name;
+}
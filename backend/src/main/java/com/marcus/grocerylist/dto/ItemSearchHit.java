@@ -0,0 +1,23 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One result of GET /items/search: the item, the list it is in, and how well it matched (higher is better)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchHit {
+    private Long id;
+    private Long groceryListId;
+    private String listName;
+    private String name;
+    private boolean completed;
+    private int quantity;
+    private long version;
+    private Instant updatedAt;
+    private double rank;
+}
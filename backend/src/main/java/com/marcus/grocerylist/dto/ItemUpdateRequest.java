@@ -0,0 +1,15 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.Data;
+
+@Data
+public class ItemUpdateRequest {
+    private String name;
+
+    private boolean completed;
+
+    private int quantity;
+
+    // The version the client last read. Without it the update overwrites whatever is stored.
+    private Long version;
+}
@@ -1,6 +1,7 @@
 package com.marcus.grocerylist.dto;
 
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -13,7 +14,7 @@ public class ItemsBatchCreateRequest {
     private Long groceryListId;
 
     @NotEmpty(message = "Item names list cannot be empty")
-    private List<String> itemNames;
+    private List<@NotBlank(message = "Item name cannot be empty") String> itemNames;
 
     private int quantity;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.marcus.grocerylist.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class ItemsBatchPatchRequest {
+
+    @Valid
+    @NotEmpty(message = "Item patches cannot be empty")
+    private List<ItemPatchRequest> items;
+}
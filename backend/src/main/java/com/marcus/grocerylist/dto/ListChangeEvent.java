@@ -0,0 +1,22 @@
+package com.marcus.grocerylist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Pushed to subscribers of a list after items change. Only ids are sent; clients fetch the rows
+ * with GET /sync?since=. When reload is true the ids were not known or were dropped because the
+ * subscriber fell behind, and the client should pull everything that changed since its watermark.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListChangeEvent {
+    private Long listId;
+    private List<Long> changed;
+    private List<Long> deleted;
+    private boolean reload;
+}
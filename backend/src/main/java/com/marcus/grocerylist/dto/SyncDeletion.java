@@ -0,0 +1,15 @@
+package com.marcus.grocerylist.dto;
+
+import com.marcus.grocerylist.model.Tombstone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncDeletion {
+    private Tombstone.Type type;
+    private Long id;
+    private Long listId;
+}
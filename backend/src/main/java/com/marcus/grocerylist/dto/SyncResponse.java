@@ -0,0 +1,25 @@
+package com.marcus.grocerylist.dto;
+
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes since the client's watermark. Pass watermark back as ?since= on the next call. When full
+ * is true the client was too far behind (or new): lists and items are everything it owns and local
+ * state should be replaced rather than merged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    private long watermark;
+    private boolean full;
+    private List<GroceryList> lists;
+    private List<Item> items;
+    private List<SyncDeletion> deleted;
+}
@@ -0,0 +1,22 @@
+package com.marcus.grocerylist.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the password hashing executor is saturated and a request is shed instead of queued.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class HashingOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public HashingOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.marcus.grocerylist.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an event stream cannot be opened: 503 when the instance has as many open as it allows,
+ * 429 when the user does. Either way the client can fall back to polling.
+ */
+public class SubscriptionLimitException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public SubscriptionLimitException(String message, HttpStatus status) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,23 @@
+package com.marcus.grocerylist.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an update carries a version that is no longer current. Holds the stored state so the
+ * client can merge or retry without a separate read.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class VersionConflictException extends RuntimeException {
+
+    private final transient Object current;
+
+    public VersionConflictException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+}
@@ -1,12 +1,13 @@
 package com.marcus.grocerylist.jwt;
 
 import com.marcus.grocerylist.service.CustomUserDetailsService;
+import com.marcus.grocerylist.service.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,11 +19,14 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -32,12 +36,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            // Signature and expiry are checked once here; a cache hit skips the HMAC entirely
+            Claims claims = verifiedTokenCache.verify(token);
+            // Refresh tokens are not bearer credentials, and logged-out tokens are dropped from memory only
+            if (claims != null && (!JwtUtil.ACCESS_TOKEN.equals(claims.get(JwtUtil.TOKEN_TYPE_CLAIM, String.class))
+                    || tokenRevocationList.isRevoked(claims.getId()))) {
+                claims = null;
+            }
+            String username = claims != null ? claims.getSubject() : null;
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserPrincipal userDetails = userDetailsService.loadPrincipal(username);
+                Long tokenUserId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
 
-                if (jwtUtil.validateToken(token, userDetails)) {
+                // A token minted for a deleted account must not authenticate a new account that reused the name
+                // and a password change invalidates everything issued before it
+                if (username.equals(userDetails.getUsername())
+                        && (tokenUserId == null || tokenUserId.equals(userDetails.getId()))
+                        && !JwtUtil.issuedBefore(claims, userDetails.getCredentialsChangedAt())) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
@@ -52,4 +68,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -3,8 +3,13 @@ package com.marcus.grocerylist.jwt;
 import io.jsonwebtoken.Jwts;
 import java.util.Date;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
 import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,22 +19,75 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secretKey;
 
-    private static final long EXPIRATION_TIME = 30L * 24 * 60 * 60 * 1000;
+    // Access tokens are checked against the in-memory revocation list only, so keep them short-lived
+    @Value("${jwt.access-token.ttl:15m}")
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    @Value("${jwt.refresh-token.ttl:30d}")
+    private Duration refreshTokenTtl = Duration.ofDays(30);
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    // The key and parser are immutable and thread-safe, so build them once instead of per call
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    /** Short-lived token sent as the Bearer credential on every request. */
+    public String generateToken(String username, Long userId){
+        return buildToken(username, userId, ACCESS_TOKEN, accessTokenTtl);
+    }
+
+    /** Long-lived token accepted only by /auth/refresh, where it is exchanged for a new pair. */
+    public String generateRefreshToken(String username, Long userId) {
+        return buildToken(username, userId, REFRESH_TOKEN, refreshTokenTtl);
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
     }
-    public String generateToken(String username){
+
+    private String buildToken(String username, Long userId, String type, Duration ttl) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(TOKEN_TYPE_CLAIM, type)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttl.toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * True if the token was issued before the given moment, e.g. the user's last password change.
+     * iat only has second precision, so the moment is compared at second precision too.
+     */
+    public static boolean issuedBefore(Claims claims, Instant moment) {
+        if (moment == null) {
+            return false;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.toInstant().isBefore(moment.truncatedTo(ChronoUnit.SECONDS));
+    }
+
     public String extractUsername(String token) {
-        return parseToken(token).getBody().getSubject();
+        return parseClaims(token).getSubject();
+    }
+
+    public Long extractUserId(String token) {
+        return parseClaims(token).get(USER_ID_CLAIM, Long.class);
     }
 
     public boolean isTokenValid(String token) {
@@ -41,16 +99,21 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verifies the signature and expiry of the token and returns its claims.
+     * Throws a JwtException if the token is malformed, tampered with or expired.
+     */
+    public Claims parseClaims(String token) {
+        return parseToken(token).getBody();
+    }
+
     private Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
     public boolean isTokenExpired(String token) {
@@ -58,6 +121,6 @@ public class JwtUtil {
     }
 
     public Date extractExpiration(String token) {
-        return parseToken(token).getBody().getExpiration();
+        return parseClaims(token).getExpiration();
     }
 }
@@ -0,0 +1,108 @@
+package com.marcus.grocerylist.jwt;
+
+import com.marcus.grocerylist.model.RevokedToken;
+import com.marcus.grocerylist.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids, kept in memory so the per-request check never touches the database. A bloom
+ * filter answers the common "not revoked" case; only its hits are confirmed against the exact set.
+ * Both are rebuilt from the revoked_tokens table at startup and whenever expired ids are purged.
+ * Other instances pick up a revocation on their next purge, which is why access tokens are short-lived;
+ * the refresh endpoint asks the table directly.
+ */
+@Component
+public class TokenRevocationList implements MeterBinder {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private volatile Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private Counter falsePositives;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${jwt.revocation.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void load() {
+        purgeExpired();
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (revoked.containsKey(jti)) {
+            return true;
+        }
+        if (falsePositives != null) {
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    // Authoritative across instances; for the rare paths that can afford a query
+    public boolean isRevokedAnywhere(String jti) {
+        return isRevoked(jti) || (jti != null && revokedTokenRepository.existsById(jti));
+    }
+
+    /**
+     * Records the id in the table and in memory. Fails with a DataIntegrityViolationException
+     * if the id was already revoked, which callers use to detect a token being used twice.
+     */
+    public synchronized void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt.isBefore(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.saveAndFlush(new RevokedToken(jti, expiresAt));
+        revoked.put(jti, expiresAt);
+        filter.put(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}", initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteExpired(now);
+        // Reloading also brings in ids revoked by other instances since the last purge
+        Map<String, Instant> reloaded = new ConcurrentHashMap<>();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+            reloaded.put(token.getJti(), token.getExpiresAt());
+        }
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, reloaded.size() * 2), falsePositiveRate);
+        reloaded.keySet().forEach(rebuilt::put);
+        revoked = reloaded;
+        filter = rebuilt;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jwt.revoked.tokens", this, TokenRevocationList::size)
+                .description("Revoked, not yet expired token ids held in memory")
+                .register(registry);
+        falsePositives = Counter.builder("jwt.revocation.bloom.false.positives")
+                .description("Bloom filter hits that the exact set did not confirm")
+                .register(registry);
+    }
+}
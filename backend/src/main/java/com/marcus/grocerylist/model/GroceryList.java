@@ -1,8 +1,13 @@
 package com.marcus.grocerylist.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -10,7 +15,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Data
 @Entity
-@Table(name = "grocery_lists")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "grocery_lists", indexes = {
+        @Index(name = "idx_grocery_lists_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_grocery_lists_user_id_updated_at", columnList = "user_id, updated_at")
+})
 public class GroceryList {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,12 +29,24 @@ public class GroceryList {
     @NotBlank(message = "List name cannot be empty")
     private String name;
 
-//    @JsonIgnore
-    @ManyToOne
+    // Checked on PUT /lists/{id} when the client sends the version it read; the default fills existing rows
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamp(6) with time zone default current_timestamp")
+    private Instant updatedAt;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "groceryList", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Item> items = new ArrayList<>();
 
@@ -34,4 +56,10 @@ public class GroceryList {
         this.name = name;
         this.user = user;
     }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
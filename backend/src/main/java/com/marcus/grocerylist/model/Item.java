@@ -1,12 +1,25 @@
 package com.marcus.grocerylist.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.Instant;
+
 @Data
 @Entity
-@Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_list_id_id", columnList = "list_id, id"),
+        @Index(name = "idx_items_list_id_updated_at", columnList = "list_id, updated_at")
+})
 public class Item {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,7 +33,19 @@ public class Item {
     @Column(nullable = false)
     private int quantity;
 
-    @ManyToOne
+    // Bumped by every update, including the set-based batch patches; the default fills existing rows
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // Drives GET /sync; set on every write, including the JDBC and bulk JPQL paths in ItemBatchWriter
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamp(6) with time zone default current_timestamp")
+    private Instant updatedAt;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "list_id", nullable = false)
     private GroceryList groceryList;
 
@@ -41,4 +66,16 @@ public class Item {
 
     public Item(){};
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
+    // Reading the id of a list proxy does not initialize it, so serializing an item never loads its list
+    @JsonProperty("groceryListId")
+    public Long groceryListId() {
+        return groceryList != null ? groceryList.getId() : null;
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.marcus.grocerylist.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Item counts for one list, so GET /lists can show "12 of 30 done" without loading any items.
+ * Kept up to date by ListSummaryWriter in the same transaction as every item write, and removed
+ * by the database together with its list. Not in the second-level cache: it is only written
+ * through JDBC and only read through projections.
+ */
+@Data
+@Entity
+@Table(name = "list_summaries")
+public class ListSummary {
+    @Id
+    @Column(name = "list_id")
+    private Long listId;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "list_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private GroceryList groceryList;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private int completedCount;
+
+    // Time of the last item write in the list
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+}
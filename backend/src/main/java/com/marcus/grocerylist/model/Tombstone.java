@@ -0,0 +1,38 @@
+package com.marcus.grocerylist.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Marks a deleted item or list so GET /sync can tell clients what to drop. A list tombstone also
+ * covers every item that was in it. Kept for sync.tombstone-retention, after which clients that
+ * are further behind get a full resync instead.
+ */
+@Data
+@Entity
+@Table(name = "tombstones", indexes = @Index(name = "idx_tombstones_user_id_deleted_at", columnList = "user_id, deleted_at"))
+public class Tombstone {
+    public enum Type { ITEM, LIST }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 8)
+    private Type entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "list_id", nullable = false)
+    private Long listId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -3,6 +3,7 @@ package com.marcus.grocerylist.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import lombok.Data;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -29,6 +30,10 @@ public class User {
     @Column(unique = true, nullable = false)
     private String email;
 
+    // Tokens issued before this moment are rejected; moved forward on password change
+    @JsonIgnore
+    private Instant credentialsChangedAt;
+
     @JsonIgnore
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<GroceryList> lists = new ArrayList<>();
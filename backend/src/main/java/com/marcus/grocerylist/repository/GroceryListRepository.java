@@ -1,12 +1,45 @@
 package com.marcus.grocerylist.repository;
 
+import com.marcus.grocerylist.dto.GroceryListSummary;
 import com.marcus.grocerylist.model.GroceryList;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import com.marcus.grocerylist.model.User;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GroceryListRepository extends JpaRepository<GroceryList, Long> {
     List<GroceryList> findByUser(User user);
+
+    long countByUserId(Long userId);
+
+    List<GroceryList> findByUserIdAndUpdatedAtAfterOrderByIdAsc(Long userId, Instant since);
+
+    String SUMMARY_SELECT = "select new com.marcus.grocerylist.dto.GroceryListSummary(l.id, l.name, l.version, l.updatedAt, " +
+            "coalesce(s.itemCount, 0), coalesce(s.completedCount, 0), coalesce(s.lastModified, l.updatedAt)) " +
+            "from GroceryList l left join ListSummary s on s.listId = l.id ";
+
+    // The user's lists with their item counts, in one query over the (user_id, id) index and the summary primary key
+    @Query(SUMMARY_SELECT + "where l.user.id = :userId order by l.id")
+    List<GroceryListSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Keyset page over the same index: rows after the cursor id, in id order
+    @Query(SUMMARY_SELECT + "where l.user.id = :userId and l.id > :afterId order by l.id")
+    List<GroceryListSummary> findSummariesByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_SELECT + "where l.user.id = :userId order by l.id")
+    Stream<GroceryListSummary> streamSummariesByUserId(@Param("userId") Long userId);
+
+    // Primary key lookup that reads the user_id column only, without hydrating the list or its owner
+    @Query("select l.user.id from GroceryList l where l.id = :listId")
+    Optional<Long> findOwnerIdById(@Param("listId") Long listId);
 }
@@ -0,0 +1,111 @@
+package com.marcus.grocerylist.repository;
+
+import com.marcus.grocerylist.config.SecondLevelCacheConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based write paths for items. Item ids come from an IDENTITY column, which makes Hibernate
+ * give up on insert batching and issue one round-trip per entity, so large batches go
+ * through plain JDBC batches instead. Bulk updates are JPQL so Hibernate still knows which
+ * table changed. Both run inside the caller's transaction.
+ */
+@Repository
+public class ItemBatchWriter {
+    private static final String INSERT_SQL =
+            "insert into items (name, is_completed, quantity, list_id, version, updated_at) values (?, ?, ?, ?, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ItemBatchWriter(JdbcTemplate jdbcTemplate,
+                           @Value("${items.batch-insert.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public int insertAll(Long listId, List<String> names, int quantity) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, names, batchSize, (ps, name) -> {
+            ps.setString(1, name);
+            ps.setBoolean(2, false);
+            ps.setInt(3, quantity);
+            ps.setLong(4, listId);
+            ps.setObject(5, now);
+        });
+        evictItemQueries();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Evict again once the rows are visible, in case a reader re-cached the old result meanwhile
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictItemQueries();
+                }
+            });
+        }
+        int inserted = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // Some drivers report SUCCESS_NO_INFO (-2) for batched statements
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    // Plain JDBC inserts are invisible to Hibernate, so cached item queries have to be dropped by hand.
+    // Bulk JPQL updates and deletes need no such help.
+    private void evictItemQueries() {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        cache.evictQueryRegion(SecondLevelCacheConfig.ITEMS_BY_LIST_REGION);
+        cache.evictDefaultQueryRegion();
+    }
+
+    /**
+     * Applies the same values to every given item in one UPDATE and bumps their versions and updatedAt.
+     * Null arguments leave that column unchanged.
+     */
+    public int updateAll(Collection<Long> ids, Boolean completed, Integer quantity, String name) {
+        StringBuilder jpql = new StringBuilder("update Item i set i.version = i.version + 1, i.updatedAt = :now");
+        if (completed != null) {
+            jpql.append(", i.isCompleted = :completed");
+        }
+        if (quantity != null) {
+            jpql.append(", i.quantity = :quantity");
+        }
+        if (name != null) {
+            jpql.append(", i.name = :name");
+        }
+        jpql.append(" where i.id in :ids");
+
+        Query update = entityManager.createQuery(jpql.toString())
+                .setParameter("ids", ids)
+                .setParameter("now", Instant.now());
+        if (completed != null) {
+            update.setParameter("completed", completed);
+        }
+        if (quantity != null) {
+            update.setParameter("quantity", quantity);
+        }
+        if (name != null) {
+            update.setParameter("name", name);
+        }
+        return update.executeUpdate();
+    }
+}
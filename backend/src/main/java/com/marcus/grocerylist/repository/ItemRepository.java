@@ -1,14 +1,71 @@
 package com.marcus.grocerylist.repository;
 
+import com.marcus.grocerylist.config.SecondLevelCacheConfig;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import com.marcus.grocerylist.dto.ItemListRef;
+import com.marcus.grocerylist.dto.ItemNameCount;
+import com.marcus.grocerylist.dto.ItemVersion;
 import com.marcus.grocerylist.model.Item;
 import com.marcus.grocerylist.model.GroceryList;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByGroceryList(GroceryList groceryList);
+    // Served from the items-by-list query cache; Hibernate drops the entry whenever the items table changes
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.ITEMS_BY_LIST_REGION)
+    })
     List<Item> findByGroceryListId(Long listId);
 
-    List<Item> findAllByIdIn(List<Long> itemIds);
+    // Keyset page over the (list_id, id) index: rows after the cursor id, in id order
+    List<Item> findByGroceryListIdAndIdGreaterThanOrderByIdAsc(Long listId, Long afterId, Limit limit);
+
+    long countByGroceryListId(Long listId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Item> streamByGroceryListIdOrderByIdAsc(Long listId);
+
+    long countByIdIn(Collection<Long> itemIds);
+
+    // Batch delete checks ownership with one aggregate per chunk of ids instead of loading every item
+    @Query("select count(i) from Item i join i.groceryList l where i.id in :itemIds and l.user.id = :userId")
+    long countOwnedByIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("userId") Long userId);
+
+    // Delta sync: walks the user's lists and then (list_id, updated_at) per list
+    @Query("select i from Item i join i.groceryList l where l.user.id = :userId and i.updatedAt > :since order by i.id")
+    List<Item> findChangedSince(@Param("userId") Long userId, @Param("since") Instant since);
+
+    // Every distinct name in the user's lists with how often it occurs, to seed name suggestions
+    @Query("select new com.marcus.grocerylist.dto.ItemNameCount(i.name, count(i)) from Item i " +
+            "where i.groceryList.user.id = :userId group by i.name")
+    List<ItemNameCount> countNamesByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.marcus.grocerylist.dto.ItemListRef(i.id, i.groceryList.id) from Item i where i.id in :itemIds")
+    List<ItemListRef> findListRefsByIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select new com.marcus.grocerylist.dto.ItemVersion(i.id, i.version) from Item i where i.id in :itemIds order by i.id")
+    List<ItemVersion> findVersionsByIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    // Same, but the rows stay locked until the transaction ends, so no other write lands between a version check and the update
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.marcus.grocerylist.dto.ItemVersion(i.id, i.version) from Item i where i.id in :itemIds order by i.id")
+    List<ItemVersion> lockVersionsByIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    // Joins items to grocery_lists on the primary key and returns the owning user id
+    @Query("select l.user.id from Item i join i.groceryList l where i.id = :itemId")
+    Optional<Long> findOwnerIdById(@Param("itemId") Long itemId);
 
 }
@@ -0,0 +1,134 @@
+package com.marcus.grocerylist.repository;
+
+import com.marcus.grocerylist.dto.ItemSearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ranked search over the names of a user's items. On PostgreSQL it matches words through a
+ * tsvector GIN index and misspellings and substrings through a pg_trgm GIN index, so the cost
+ * follows the number of matches rather than the size of the table. Both indexes are expression
+ * or operator-class indexes that Hibernate cannot generate, so they are created here at startup.
+ * Other databases (H2 in tests) get an unindexed substring match with the same result shape.
+ */
+@Repository
+public class ItemSearch {
+    private static final Logger log = LoggerFactory.getLogger(ItemSearch.class);
+
+    private static final String SELECT =
+            "select i.id, i.list_id, l.name as list_name, i.name, i.is_completed, i.quantity, i.version, i.updated_at, ";
+    private static final String FROM =
+            " from items i join grocery_lists l on l.id = i.list_id where l.user_id = :userId and ";
+    private static final String PAGE = " order by rank desc, i.id limit :limit offset :offset";
+
+    // 'simple' keeps names as typed: no stemming or stop words, which suit product names poorly
+    private static final String FULL_TEXT_SQL = SELECT +
+            "ts_rank(to_tsvector('simple', i.name), plainto_tsquery('simple', :q)) as rank" + FROM +
+            "to_tsvector('simple', i.name) @@ plainto_tsquery('simple', :q)" + PAGE;
+    private static final String FULL_TEXT_AND_TRIGRAM_SQL = SELECT +
+            "ts_rank(to_tsvector('simple', i.name), plainto_tsquery('simple', :q)) + similarity(i.name, :q) as rank" + FROM +
+            "(to_tsvector('simple', i.name) @@ plainto_tsquery('simple', :q) or i.name % :q or i.name ilike :contains)" + PAGE;
+    private static final String SUBSTRING_SQL = SELECT +
+            "case when lower(i.name) = :lower then 2 when lower(i.name) like :prefix then 1 else 0 end as rank" + FROM +
+            "lower(i.name) like :contains" + PAGE;
+
+    private static final String FULL_TEXT_INDEX = "idx_items_name_fts";
+    private static final String FULL_TEXT_INDEX_DDL =
+            "create index concurrently if not exists " + FULL_TEXT_INDEX + " on items using gin (to_tsvector('simple', name))";
+    private static final String TRIGRAM_INDEX = "idx_items_name_trgm";
+    private static final String TRIGRAM_INDEX_DDL =
+            "create index concurrently if not exists " + TRIGRAM_INDEX + " on items using gin (name gin_trgm_ops)";
+    // An interrupted CREATE INDEX CONCURRENTLY leaves an invalid index behind that IF NOT EXISTS then skips
+    // forever. One still being built, e.g. by another instance starting at the same time, is left alone.
+    private static final String INVALID_INDEX_SQL =
+            "select count(*) from pg_index i join pg_class c on c.oid = i.indexrelid " +
+            "where c.relname = ? and not i.indisvalid " +
+            "and not exists (select 1 from pg_stat_progress_create_index p where p.index_relid = i.indexrelid)";
+
+    private static final RowMapper<ItemSearchHit> HIT_MAPPER = (rs, rowNum) -> new ItemSearchHit(
+            rs.getLong("id"),
+            rs.getLong("list_id"),
+            rs.getString("list_name"),
+            rs.getString("name"),
+            rs.getBoolean("is_completed"),
+            rs.getInt("quantity"),
+            rs.getLong("version"),
+            rs.getObject("updated_at", OffsetDateTime.class).toInstant(),
+            rs.getDouble("rank"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+    private volatile boolean trigramAvailable;
+
+    public ItemSearch(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.postgres = "PostgreSQL".equals(product);
+    }
+
+    // Runs outside a transaction, as CREATE INDEX CONCURRENTLY requires, so writes to items are not blocked meanwhile.
+    // Failures are only logged: search still works without the indexes, just more slowly.
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!postgres) {
+            return;
+        }
+        try {
+            jdbcTemplate.getJdbcTemplate().execute("create extension if not exists pg_trgm");
+            trigramAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("pg_trgm is not available, item search falls back to whole-word matches only: {}", e.getMessage());
+        }
+        createIndex(FULL_TEXT_INDEX, FULL_TEXT_INDEX_DDL);
+        if (trigramAvailable) {
+            createIndex(TRIGRAM_INDEX, TRIGRAM_INDEX_DDL);
+        }
+    }
+
+    private void createIndex(String name, String ddl) {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        try {
+            Integer invalid = jdbc.queryForObject(INVALID_INDEX_SQL, Integer.class, name);
+            if (invalid != null && invalid > 0) {
+                log.warn("Index {} was left invalid by an interrupted build, rebuilding it", name);
+                jdbc.execute("drop index concurrently if exists " + name);
+            }
+            jdbc.execute(ddl);
+        } catch (DataAccessException e) {
+            log.warn("Could not create index {}, item search runs without it: {}", name, e.getMessage());
+        }
+    }
+
+    public List<ItemSearchHit> search(Long userId, String query, long offset, int limit) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("q", query)
+                .addValue("lower", lower)
+                .addValue("prefix", escapeLike(lower) + "%")
+                .addValue("contains", "%" + escapeLike(postgres ? query : lower) + "%")
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        String sql = !postgres ? SUBSTRING_SQL : trigramAvailable ? FULL_TEXT_AND_TRIGRAM_SQL : FULL_TEXT_SQL;
+        return jdbcTemplate.query(sql, params, HIT_MAPPER);
+    }
+
+    // Backslash is the default LIKE escape character on both PostgreSQL and H2
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,164 @@
+package com.marcus.grocerylist.repository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps list_summaries in step with item writes. Counts are only ever moved by deltas, so
+ * concurrent writers to the same list add up instead of overwriting each other. Updates and
+ * deletes first lock the affected item rows, so the state the deltas are computed from cannot
+ * change before the caller's write lands. Must run in the writing transaction, before updates
+ * and deletes and after inserts. Plain JDBC for the same reason as TombstoneWriter.
+ *
+ * A list can lack its row, e.g. when an instance still on the old code created it during a rolling
+ * deploy. A delta that finds no row counts the list's items into a new one first, so nothing is lost
+ * until the next startup backfill. Two writers can find the row missing at once; on PostgreSQL the
+ * recount that loses waits for the other's row and then applies its delta to it instead of failing
+ * on the primary key.
+ */
+@Repository
+public class ListSummaryWriter {
+    private static final String CREATE_SQL =
+            "insert into list_summaries (list_id, item_count, completed_count, last_modified) values (:listId, 0, 0, :now)";
+    private static final String ADJUST_SQL =
+            "update list_summaries set item_count = item_count + :items, completed_count = completed_count + :completed, " +
+            "last_modified = :now where list_id = :listId";
+    // Same as the backfill, for one list
+    private static final String RECOUNT_SQL =
+            "insert into list_summaries (list_id, item_count, completed_count, last_modified) " +
+            "select l.id, count(i.id), count(case when i.is_completed then 1 end), :now " +
+            "from grocery_lists l left join items i on i.list_id = l.id " +
+            "where l.id = :listId and not exists (select 1 from list_summaries s where s.list_id = l.id) group by l.id";
+    // Ordered so that concurrent batches lock shared rows in the same order
+    private static final String LOCK_ITEMS_SQL =
+            "select list_id, is_completed from items where id in (:ids) order by id for update";
+    // Lists created before list_summaries existed
+    private static final String BACKFILL_SQL =
+            "insert into list_summaries (list_id, item_count, completed_count, last_modified) " +
+            "select l.id, count(i.id), count(case when i.is_completed then 1 end), coalesce(max(i.updated_at), l.updated_at) " +
+            "from grocery_lists l left join items i on i.list_id = l.id " +
+            "where not exists (select 1 from list_summaries s where s.list_id = l.id) group by l.id, l.updated_at";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String recountSql;
+
+    public ListSummaryWriter(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        // Under READ COMMITTED the not exists check cannot see a row another writer has not committed
+        // yet. Locking the list row instead would deadlock against the key share locks that item
+        // inserts take on it, and a failed insert would abort the whole transaction.
+        this.recountSql = "PostgreSQL".equals(product) ? RECOUNT_SQL + " on conflict (list_id) do nothing" : RECOUNT_SQL;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public int createMissing() {
+        return jdbcTemplate.update(BACKFILL_SQL, new MapSqlParameterSource());
+    }
+
+    public void listCreated(Long listId) {
+        jdbcTemplate.update(CREATE_SQL, new MapSqlParameterSource()
+                .addValue("listId", listId)
+                .addValue("now", now()));
+    }
+
+    public void itemsAdded(Long listId, int items, int completed) {
+        MapSqlParameterSource adjustment = adjustment(listId, items, completed, now());
+        // The new items are already in the table, so a recount includes them. A row that another
+        // writer created meanwhile cannot see them, so they are added to it.
+        if (jdbcTemplate.update(ADJUST_SQL, adjustment) == 0 && jdbcTemplate.update(recountSql, adjustment) == 0) {
+            jdbcTemplate.update(ADJUST_SQL, adjustment);
+        }
+    }
+
+    /**
+     * For items about to get new values. A null completed leaves the counts alone and only moves
+     * last_modified. Returns how many of the items exist.
+     */
+    public int itemsUpdated(Collection<Long> itemIds, Boolean completed) {
+        Map<Long, int[]> deltas = new TreeMap<>();
+        int found = lockItems(itemIds, (listId, wasCompleted) -> {
+            int[] delta = deltas.computeIfAbsent(listId, id -> new int[2]);
+            if (completed != null && completed != wasCompleted) {
+                delta[1] += completed ? 1 : -1;
+            }
+        });
+        apply(deltas);
+        return found;
+    }
+
+    // For items about to be deleted
+    public int itemsDeleted(Collection<Long> itemIds) {
+        Map<Long, int[]> deltas = new TreeMap<>();
+        int found = lockItems(itemIds, (listId, wasCompleted) -> {
+            int[] delta = deltas.computeIfAbsent(listId, id -> new int[2]);
+            delta[0]--;
+            if (wasCompleted) {
+                delta[1]--;
+            }
+        });
+        apply(deltas);
+        return found;
+    }
+
+    private int lockItems(Collection<Long> itemIds, ItemState consumer) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        int[] found = new int[1];
+        jdbcTemplate.query(LOCK_ITEMS_SQL, new MapSqlParameterSource("ids", itemIds), rs -> {
+            consumer.accept(rs.getLong("list_id"), rs.getBoolean("is_completed"));
+            found[0]++;
+        });
+        return found[0];
+    }
+
+    // One batched UPDATE, in list id order. The write has not happened yet, so a list without a row
+    // is recounted as it stands, or found created by another writer, and then gets its delta.
+    private void apply(Map<Long, int[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = now();
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .map(entry -> adjustment(entry.getKey(), entry.getValue()[0], entry.getValue()[1], now))
+                .toArray(SqlParameterSource[]::new);
+        int[] updated = jdbcTemplate.batchUpdate(ADJUST_SQL, batch);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                jdbcTemplate.update(recountSql, batch[i]);
+                jdbcTemplate.update(ADJUST_SQL, batch[i]);
+            }
+        }
+    }
+
+    private static MapSqlParameterSource adjustment(Long listId, int items, int completed, OffsetDateTime now) {
+        return new MapSqlParameterSource()
+                .addValue("listId", listId)
+                .addValue("items", items)
+                .addValue("completed", completed)
+                .addValue("now", now);
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    private interface ItemState {
+        void accept(long listId, boolean completed);
+    }
+}
@@ -0,0 +1,24 @@
+package com.marcus.grocerylist.repository;
+
+import com.marcus.grocerylist.dto.SyncDeletion;
+import com.marcus.grocerylist.model.Tombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query("select new com.marcus.grocerylist.dto.SyncDeletion(t.entityType, t.entityId, t.listId) from Tombstone t " +
+            "where t.userId = :userId and t.deletedAt > :since order by t.id")
+    List<SyncDeletion> findDeletionsSince(@Param("userId") Long userId, @Param("since") Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Tombstone t where t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
@@ -1,26 +1,52 @@
 package com.marcus.grocerylist.service;
 
-import org.springframework.security.core.userdetails.User;
 import com.marcus.grocerylist.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
-import com.marcus.grocerylist.exception.EmailNotFoundException;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    // Used by the login flow, which needs the password hash, so it always reads the database
     @Override
     public UserDetails loadUserByUsername(String username){
         com.marcus.grocerylist.model.User appUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return User.withUsername(appUser.getUsername())
-                .password(appUser.getPassword())
-                .authorities("USER")
-                .build();
+        return new UserPrincipal(appUser.getId(), appUser.getUsername(), appUser.getPassword(),
+                AuthorityUtils.createAuthorityList("USER"));
+    }
+
+    // Used on every authenticated request; served from the principal cache and never holds the password.
+    // Always read from the primary: a replica copy could carry a credentialsChangedAt from before a password change
+    public UserPrincipal loadPrincipal(String username) {
+        return principalCache.get(username, name -> {
+            com.marcus.grocerylist.model.User appUser = userRepository.findByUsername(name)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + name));
+            return new UserPrincipal(appUser.getId(), appUser.getUsername(), null,
+                    AuthorityUtils.createAuthorityList("USER"), appUser.getCredentialsChangedAt());
+        });
+    }
+
+    // Called by the authentication provider after a successful login whose stored hash needs upgrading
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        com.marcus.grocerylist.model.User appUser = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + user.getUsername()));
+        appUser.setPassword(newPassword);
+        userRepository.save(appUser);
+
+        return new UserPrincipal(appUser.getId(), appUser.getUsername(), newPassword,
+                AuthorityUtils.createAuthorityList("USER"));
     }
 }
@@ -1,25 +1,73 @@
 package com.marcus.grocerylist.service;
 
+import com.marcus.grocerylist.config.ReplicaRead;
+import com.marcus.grocerylist.dto.GroceryListSummary;
+import com.marcus.grocerylist.dto.GroceryListUpdateRequest;
+import com.marcus.grocerylist.exception.ResourceNotFoundException;
+import com.marcus.grocerylist.exception.VersionConflictException;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ListSummaryWriter;
+import com.marcus.grocerylist.repository.TombstoneWriter;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.marcus.grocerylist.model.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "grocerylist.service", histogram = true)
 public class GroceryListService {
     private final GroceryListRepository groceryListRepository;
+    private final OwnershipService ownershipService;
+    private final TombstoneWriter tombstoneWriter;
+    private final ListVersionCache listVersionCache;
+    private final ListSummaryWriter listSummaryWriter;
 
-    public GroceryListService(GroceryListRepository groceryListRepository){
+    public GroceryListService(GroceryListRepository groceryListRepository, OwnershipService ownershipService,
+                              TombstoneWriter tombstoneWriter, ListVersionCache listVersionCache,
+                              ListSummaryWriter listSummaryWriter){
         this.groceryListRepository = groceryListRepository;
+        this.ownershipService = ownershipService;
+        this.tombstoneWriter = tombstoneWriter;
+        this.listVersionCache = listVersionCache;
+        this.listSummaryWriter = listSummaryWriter;
     }
 
     public List<GroceryList> findListsByUser(User user){
         return groceryListRepository.findByUser(user);
     }
 
+    @Transactional(readOnly = true)
+    public List<GroceryListSummary> findListSummaries(Long userId){
+        return groceryListRepository.findSummariesByUserId(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<GroceryListSummary> getListSummariesPage(Long userId, Long afterId, int limit){
+        return groceryListRepository.findSummariesByUserIdAfter(userId, afterId, Limit.of(limit));
+    }
+
+    public long countListsByUser(Long userId){
+        return groceryListRepository.countByUserId(userId);
+    }
+
+    // Rows are projections rather than entities, so nothing piles up in the persistence context.
+    // Carries no ETag, so it may come from a replica
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public void streamListSummaries(Long userId, Consumer<GroceryListSummary> consumer){
+        try (Stream<GroceryListSummary> lists = groceryListRepository.streamSummariesByUserId(userId)) {
+            lists.forEach(consumer);
+        }
+    }
+
     public List<GroceryList> getListById(User user){
         return groceryListRepository.findByUser(user);
     }
@@ -28,11 +76,46 @@ public class GroceryListService {
         return groceryListRepository.findById(id);
     }
 
+    // Proxy that only carries the id, for setting the list_id foreign key without a SELECT
+    public GroceryList getReference(Long id){
+        return groceryListRepository.getReferenceById(id);
+    }
+
+    // A new list gets its empty summary row in the same transaction
+    @Transactional
     public GroceryList saveList(GroceryList list){
-        return groceryListRepository.save(list);
+        boolean isNew = list.getId() == null;
+        GroceryList saved = groceryListRepository.save(list);
+        if (isNew) {
+            listSummaryWriter.listCreated(saved.getId());
+        }
+        if (list.getUser() != null) {
+            listVersionCache.bumpOwner(list.getUser().getId());
+        }
+        return saved;
+    }
+
+    // Same version check as ItemService.updateItem, on a list the caller has loaded and checked the owner of
+    public GroceryList updateList(GroceryList list, GroceryListUpdateRequest changes){
+        if (changes.getVersion() != null && changes.getVersion() != list.getVersion()) {
+            throw new VersionConflictException("List was changed by another request", list);
+        }
+        list.setName(changes.getName());
+        try {
+            return saveList(list);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new VersionConflictException("List was changed by another request", groceryListRepository.findById(list.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("List not found")));
+        }
     }
 
+    // One tombstone for the list; clients drop its items along with it. The database drops its summary.
+    @Transactional
     public void deleteList(Long id){
+        ownershipService.findListOwnerId(id).ifPresent(listVersionCache::bumpOwner);
+        tombstoneWriter.recordList(id);
         groceryListRepository.deleteById(id);
+        ownershipService.evictList(id);
+        listVersionCache.bumpList(id);
     }
 }
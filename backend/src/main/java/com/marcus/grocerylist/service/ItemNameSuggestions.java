@@ -0,0 +1,230 @@
+package com.marcus.grocerylist.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marcus.grocerylist.dto.ItemNameCount;
+import com.marcus.grocerylist.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Item name suggestions from the names a user has used before, most frequent first, answered
+ * from memory so typing does not turn into a query per keystroke.
+ *
+ * Each user's names live in a sorted array, built on first use with one grouped query and then
+ * kept current by the item create paths. Indexes are dropped least-recently-used first once
+ * their estimated size passes suggestions.max-memory, and after suggestions.idle-ttl without a
+ * lookup. Like the ETag counters they are per instance, so names added through another
+ * instance show up once the index here is rebuilt.
+ */
+@Service
+public class ItemNameSuggestions implements MeterBinder {
+    private final ItemRepository itemRepository;
+    private final Cache<Long, NameIndex> indexes;
+
+    public ItemNameSuggestions(ItemRepository itemRepository,
+                               @Value("${suggestions.max-memory:32MB}") DataSize maxMemory,
+                               @Value("${suggestions.idle-ttl:30m}") Duration idleTtl) {
+        this.itemRepository = itemRepository;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((Long userId, NameIndex index) -> index.weight())
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+    }
+
+    public List<String> suggest(Long userId, String prefix, int limit) {
+        return indexes.get(userId, id -> NameIndex.of(itemRepository.countNamesByUserId(id)))
+                .suggest(normalize(prefix), limit);
+    }
+
+    // Only users whose index is loaded are touched; the others pick the names up when theirs is built
+    public void recordForCurrentUser(Collection<String> names) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            Long userId = principal.getId();
+            afterCommit(() -> indexes.asMap().computeIfPresent(userId, (id, index) -> index.with(names)));
+        } else {
+            afterCommit(indexes::invalidateAll);
+        }
+    }
+
+    static String normalize(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    // A load that reads the new rows and then gets the increment too counts them twice, which only nudges the order
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Immutable snapshot of one user's names: normalized keys in sorted order, the spelling to show,
+     * and how often each was used. A prefix is a binary search followed by a scan of its matches.
+     * Updates copy the arrays, which for a few thousand names is cheaper than any node-based tree
+     * and keeps the footprint to three arrays.
+     */
+    static final class NameIndex {
+        private static final NameIndex EMPTY = new NameIndex(new String[0], new String[0], new int[0]);
+
+        private final String[] keys;
+        private final String[] names;
+        private final int[] counts;
+        private final int weight;
+
+        private NameIndex(String[] keys, String[] names, int[] counts) {
+            this.keys = keys;
+            this.names = names;
+            this.counts = counts;
+            long bytes = 64;
+            for (int i = 0; i < keys.length; i++) {
+                bytes += 16 + 48 + keys[i].length();
+                // The display name shares the key's instance when it is already lower case
+                if (names[i] != keys[i]) {
+                    bytes += 48 + names[i].length();
+                }
+            }
+            this.weight = (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        static NameIndex of(List<ItemNameCount> rows) {
+            return EMPTY.merge(collect(rows.stream()
+                    .map(row -> Map.entry(row.getName(), (int) row.getCount()))
+                    .toList()));
+        }
+
+        NameIndex with(Collection<String> added) {
+            return merge(collect(added.stream().map(name -> Map.entry(name, 1)).toList()));
+        }
+
+        int weight() {
+            return weight;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            int from = Arrays.binarySearch(keys, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            // Min-heap of the best matches so far: lowest count, then last alphabetically, on top
+            Comparator<Integer> rank = Comparator.<Integer>comparingInt(i -> counts[i])
+                    .thenComparing(i -> keys[i], Comparator.reverseOrder());
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, rank);
+            for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+                best.add(i);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<String> suggestions = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                suggestions.add(names[best.poll()]);
+            }
+            Collections.reverse(suggestions);
+            return suggestions;
+        }
+
+        // Groups by normalized key; the spelling used most often is the one shown
+        private static TreeMap<String, Entry> collect(List<Map.Entry<String, Integer>> counted) {
+            TreeMap<String, Entry> byKey = new TreeMap<>();
+            for (Map.Entry<String, Integer> row : counted) {
+                if (row.getKey() == null || row.getKey().isBlank()) {
+                    continue;
+                }
+                String name = row.getKey().strip();
+                byKey.computeIfAbsent(normalize(name), key -> new Entry()).add(name, row.getValue());
+            }
+            return byKey;
+        }
+
+        // Merges the sorted additions into a copy of the arrays
+        private NameIndex merge(TreeMap<String, Entry> added) {
+            if (added.isEmpty()) {
+                return this;
+            }
+            int capacity = keys.length + added.size();
+            String[] mergedKeys = new String[capacity];
+            String[] mergedNames = new String[capacity];
+            int[] mergedCounts = new int[capacity];
+            int i = 0;
+            int n = 0;
+            for (Map.Entry<String, Entry> entry : added.entrySet()) {
+                String key = entry.getKey();
+                while (i < keys.length && keys[i].compareTo(key) < 0) {
+                    mergedKeys[n] = keys[i];
+                    mergedNames[n] = names[i];
+                    mergedCounts[n++] = counts[i++];
+                }
+                Entry addition = entry.getValue();
+                if (i < keys.length && keys[i].equals(key)) {
+                    mergedKeys[n] = keys[i];
+                    mergedNames[n] = names[i];
+                    mergedCounts[n++] = counts[i++] + addition.total;
+                } else {
+                    mergedKeys[n] = key;
+                    mergedNames[n] = addition.name.equals(key) ? key : addition.name;
+                    mergedCounts[n++] = addition.total;
+                }
+            }
+            while (i < keys.length) {
+                mergedKeys[n] = keys[i];
+                mergedNames[n] = names[i];
+                mergedCounts[n++] = counts[i++];
+            }
+            return new NameIndex(Arrays.copyOf(mergedKeys, n), Arrays.copyOf(mergedNames, n), Arrays.copyOf(mergedCounts, n));
+        }
+
+        private static final class Entry {
+            private String name;
+            private int nameCount;
+            private int total;
+
+            void add(String spelling, int count) {
+                if (count > nameCount) {
+                    name = spelling;
+                    nameCount = count;
+                }
+                total += count;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, indexes, "item-name-suggestions");
+    }
+}
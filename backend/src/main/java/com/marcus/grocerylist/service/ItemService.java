@@ -1,40 +1,164 @@
 package com.marcus.grocerylist.service;
 
+import com.marcus.grocerylist.config.ReplicaRead;
+import com.marcus.grocerylist.dto.ItemListRef;
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import com.marcus.grocerylist.dto.ItemSearchHit;
+import com.marcus.grocerylist.dto.ItemUpdateRequest;
+import com.marcus.grocerylist.dto.ItemVersion;
 import com.marcus.grocerylist.exception.ResourceNotFoundException;
 import com.marcus.grocerylist.exception.UnauthorizedAccessException;
+import com.marcus.grocerylist.exception.VersionConflictException;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ItemBatchWriter;
 import com.marcus.grocerylist.repository.ItemRepository;
+import com.marcus.grocerylist.repository.ItemSearch;
+import com.marcus.grocerylist.repository.ListSummaryWriter;
+import com.marcus.grocerylist.repository.TombstoneWriter;
 import com.marcus.grocerylist.model.Item;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "grocerylist.service", histogram = true)
 public class ItemService {
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final ItemRepository itemRepository;
     private final GroceryListRepository groceryListRepository;
+    private final ItemBatchWriter itemBatchWriter;
+    private final TombstoneWriter tombstoneWriter;
+    private final ListVersionCache listVersionCache;
+    private final ListSummaryWriter listSummaryWriter;
+    private final ItemSearch itemSearch;
+    private final ItemNameSuggestions itemNameSuggestions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public ItemService(ItemRepository itemRepository, GroceryListRepository groceryListRepository){
+    public ItemService(ItemRepository itemRepository, GroceryListRepository groceryListRepository,
+                       ItemBatchWriter itemBatchWriter, TombstoneWriter tombstoneWriter,
+                       ListVersionCache listVersionCache, ListSummaryWriter listSummaryWriter,
+                       ItemSearch itemSearch, ItemNameSuggestions itemNameSuggestions){
         this.itemRepository = itemRepository;
         this.groceryListRepository = groceryListRepository;
+        this.itemBatchWriter = itemBatchWriter;
+        this.tombstoneWriter = tombstoneWriter;
+        this.listVersionCache = listVersionCache;
+        this.listSummaryWriter = listSummaryWriter;
+        this.itemSearch = itemSearch;
+        this.itemNameSuggestions = itemNameSuggestions;
     }
 
+    @Transactional(readOnly = true)
     public List<Item> getItemsByListId(Long listId) {
         return itemRepository.findByGroceryListId(listId);
     }
 
+    @Transactional(readOnly = true)
+    public List<Item> getItemsPage(Long listId, Long afterId, int limit) {
+        return itemRepository.findByGroceryListIdAndIdGreaterThanOrderByIdAsc(listId, afterId, Limit.of(limit));
+    }
+
+    public long countItemsByListId(Long listId) {
+        return itemRepository.countByGroceryListId(listId);
+    }
+
+    public List<String> suggestItemNames(Long userId, String prefix, int limit) {
+        return itemNameSuggestions.suggest(userId, prefix, limit);
+    }
+
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public List<ItemSearchHit> searchItems(Long userId, String query, long offset, int limit) {
+        return itemSearch.search(userId, query, offset, limit);
+    }
+
+    // Walks the JDBC cursor and detaches each row once it has been handed over,
+    // so the persistence context does not grow with the size of the list. Carries no ETag, so it may come from a replica.
+    // Rows from a lagging replica must not be put in the shared second-level cache, where primary reads would find them;
+    // a query hint would not do, as Hibernate only applies it while the query executes, not while the cursor is walked
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public void streamItemsByListId(Long listId, Consumer<Item> consumer) {
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        try (Stream<Item> items = itemRepository.streamByGroceryListIdOrderByIdAsc(listId)) {
+            items.forEach(item -> {
+                consumer.accept(item);
+                entityManager.detach(item);
+            });
+        }
+    }
+
+    // Item writes also change the counts on GET /lists, hence the owner's ETag as well as the list's
+    @Transactional
     public Item saveItem(Item item) {
-        return itemRepository.save(item);
+        boolean isNew = item.getId() == null;
+        if (!isNew) {
+            listSummaryWriter.itemsUpdated(List.of(item.getId()), item.isCompleted());
+        }
+        Item saved = itemRepository.save(item);
+        if (isNew) {
+            listSummaryWriter.itemsAdded(saved.getGroceryList().getId(), 1, saved.isCompleted() ? 1 : 0);
+            itemNameSuggestions.recordForCurrentUser(List.of(saved.getName()));
+        }
+        listVersionCache.bumpList(saved.getGroceryList().getId());
+        listVersionCache.bumpCurrentUser();
+        return saved;
     }
 
+    /**
+     * Full update of one item. When the client sends the version it read, the write only goes through if the
+     * item is still at that version. The row is locked before it is read, so no other request can change it
+     * between the check and the UPDATE.
+     */
+    @Transactional
+    public Item updateItem(Long id, ItemUpdateRequest changes) {
+        listSummaryWriter.itemsUpdated(List.of(id), changes.isCompleted());
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Item not found"));
+        if (changes.getVersion() != null && changes.getVersion() != item.getVersion()) {
+            throw new VersionConflictException("Item was changed by another request", item);
+        }
+        if (changes.getName() != null && !changes.getName().equals(item.getName())) {
+            itemNameSuggestions.recordForCurrentUser(List.of(changes.getName()));
+        }
+        item.setName(changes.getName());
+        item.setCompleted(changes.isCompleted());
+        item.setQuantity(changes.getQuantity());
+        Item saved = itemRepository.save(item);
+        listVersionCache.bumpList(saved.getGroceryList().getId());
+        listVersionCache.bumpCurrentUser();
+        return saved;
+    }
+
+    @Transactional
     public void deleteItem(Long id) {
+        listSummaryWriter.itemsDeleted(List.of(id));
+        tombstoneWriter.recordItems(List.of(id));
         itemRepository.deleteById(id);
+        listVersionCache.bumpCurrentUser();
     }
 
     public List<Item> getItemsByGroceryList(GroceryList groceryList){
@@ -43,41 +167,166 @@ public class ItemService {
 
     public Optional<Item> findById(Long id) { return itemRepository.findById(id); }
 
+    // For change notifications on writes that only carry item ids: one small query per chunk
+    public Map<Long, List<Long>> groupIdsByList(Collection<Long> itemIds){
+        Map<Long, List<Long>> byList = new LinkedHashMap<>();
+        for(List<Long> ids: chunk(new ArrayList<>(new LinkedHashSet<>(itemIds)))){
+            for(ItemListRef ref: itemRepository.findListRefsByIdIn(ids)){
+                byList.computeIfAbsent(ref.getListId(), listId -> new ArrayList<>()).add(ref.getId());
+            }
+        }
+        return byList;
+    }
+
     @Transactional // All or nothing
     public void deleteItemsInBatch(List<Long> itemIds){
         if(itemIds.isEmpty()){
             return;
         }
-        String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-        HashSet<Long> uniqueItemIdsSet = new HashSet<>(itemIds);
-        List<Long> uniqueItemIds = new ArrayList<>(uniqueItemIdsSet);
+        List<List<Long>> chunks = chunk(new ArrayList<>(new LinkedHashSet<>(itemIds)));
+
+        checkOwnedByCurrentUser(chunks, "You are not authorized to delete items that do not belong to your lists.");
+        for(List<Long> ids: chunks){
+            listSummaryWriter.itemsDeleted(ids);
+            tombstoneWriter.recordItems(ids);
+            itemRepository.deleteAllByIdInBatch(ids);
+        }
+        listVersionCache.bumpCurrentUser();
+    }
+
+    /**
+     * Applies partial updates to many items at once. Patches for the same id are merged in order,
+     * then items that end up with identical changes share a single UPDATE, so ticking off a whole
+     * cart costs one statement. Returns the new version of every patched item.
+     */
+    @Transactional
+    public List<ItemVersion> patchItemsInBatch(List<ItemPatchRequest> patches){
+        if(patches.isEmpty()){
+            return new ArrayList<>();
+        }
+        Map<Long, PatchValues> merged = new LinkedHashMap<>();
+        for(ItemPatchRequest patch: patches){
+            merged.merge(patch.getId(), PatchValues.of(patch), PatchValues::overriddenBy);
+        }
+        List<List<Long>> chunks = chunk(new ArrayList<>(merged.keySet()));
+        checkOwnedByCurrentUser(chunks, "You are not authorized to update items that do not belong to your lists.");
 
-        List<Item> foundItems = itemRepository.findAllByIdIn(uniqueItemIds);
+        applyPatches(merged);
+        listVersionCache.bumpCurrentUser();
 
-        if (foundItems.size() != uniqueItemIds.size()) {
-            throw new ResourceNotFoundException("Some items not found");
+        List<ItemVersion> versions = new ArrayList<>();
+        for(List<Long> ids: chunks){
+            versions.addAll(itemRepository.findVersionsByIdIn(ids));
         }
+        return versions;
+    }
 
-        for(Item item: foundItems){
-            GroceryList groceryList = item.getGroceryList();
+    /**
+     * Applies changes queued by ItemWriteBehind, grouped into shared UPDATEs like patchItemsInBatch.
+     * Ownership was checked when they were queued. A change is only written if the item still has the
+     * version it was queued against, so a flush never undoes a write that landed after the change was
+     * acknowledged; changes to items written or deleted since are dropped. Returns the ids written.
+     */
+    @Transactional
+    public Set<Long> applyQueuedPatches(List<ItemPatchRequest> patches, Map<Long, Long> queuedVersions){
+        Map<Long, PatchValues> merged = new LinkedHashMap<>();
+        for(ItemPatchRequest patch: patches){
+            merged.merge(patch.getId(), PatchValues.of(patch), PatchValues::overriddenBy);
+        }
+        Set<Long> current = new HashSet<>();
+        for(List<Long> ids: chunk(new ArrayList<>(merged.keySet()))){
+            for(ItemVersion stored: itemRepository.lockVersionsByIdIn(ids)){
+                if (Long.valueOf(stored.getVersion()).equals(queuedVersions.get(stored.getId()))) {
+                    current.add(stored.getId());
+                }
+            }
+        }
+        merged.keySet().retainAll(current);
+        applyPatches(merged);
+        return merged.keySet();
+    }
 
-            if (!groceryList.getUser().getUsername().equals(currentUsername)) {
-                throw new UnauthorizedAccessException("You are not authorized to delete item with ID: " + item.getId() + " as it does not belong to your list.");
+    private void applyPatches(Map<Long, PatchValues> merged){
+        Map<PatchValues, List<Long>> groups = new LinkedHashMap<>();
+        merged.forEach((id, values) -> {
+            if (!values.isEmpty()) {
+                groups.computeIfAbsent(values, v -> new ArrayList<>()).add(id);
+            }
+        });
+        groups.forEach((values, ids) -> {
+            for(List<Long> group: chunk(ids)){
+                listSummaryWriter.itemsUpdated(group, values.completed());
+                itemBatchWriter.updateAll(group, values.completed(), values.quantity(), values.name());
+            }
+        });
+    }
+
+    private void checkOwnedByCurrentUser(List<List<Long>> chunks, String forbiddenMessage){
+        Long currentUserId = currentUserId();
+        for(List<Long> ids: chunks){
+            long owned = itemRepository.countOwnedByIdIn(ids, currentUserId);
+            if (owned == ids.size()) {
+                continue;
+            }
+            // Only a failed check pays for the second count that tells missing items from foreign ones
+            if (itemRepository.countByIdIn(ids) != ids.size()) {
+                throw new ResourceNotFoundException("Some items not found");
             }
+            throw new UnauthorizedAccessException(forbiddenMessage);
         }
-        itemRepository.deleteAllByIdInBatch(uniqueItemIds);
     }
 
+    // The JWT filter authenticates every request with a UserPrincipal, which carries the id
+    private static Long currentUserId(){
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        throw new UnauthorizedAccessException("No authenticated user.");
+    }
+
+    private record PatchValues(Boolean completed, Integer quantity, String name) {
+        static PatchValues of(ItemPatchRequest patch) {
+            return new PatchValues(patch.getCompleted(), patch.getQuantity(), patch.getName());
+        }
+
+        PatchValues overriddenBy(PatchValues later) {
+            return new PatchValues(
+                    later.completed != null ? later.completed : completed,
+                    later.quantity != null ? later.quantity : quantity,
+                    later.name != null ? later.name : name);
+        }
+
+        boolean isEmpty() {
+            return completed == null && quantity == null && name == null;
+        }
+    }
+
+    // Keeps each IN list well under PostgreSQL's limit of 32767 bind parameters per statement
+    private static List<List<Long>> chunk(List<Long> ids){
+        List<List<Long>> chunks = new ArrayList<>();
+        for(int from = 0; from < ids.size(); from += ID_CHUNK_SIZE){
+            chunks.add(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    // Goes straight to JDBC batches, so the @NotBlank check on Item.name has to be done here
     @Transactional
     public void createItemsInBatch(GroceryList groceryList, List<String> itemNames){
         if(itemNames.isEmpty()){
             return;
         }
-        List<Item> SaveItem = new ArrayList<>();
         for(String name:itemNames){
-            SaveItem.add(new Item(name, groceryList));
+            if(name == null || name.isBlank()){
+                throw new IllegalArgumentException("Item name cannot be null or empty in batch");
+            }
         }
-        itemRepository.saveAll(SaveItem);
+        itemBatchWriter.insertAll(groceryList.getId(), itemNames, 0);
+        listSummaryWriter.itemsAdded(groceryList.getId(), itemNames.size(), 0);
+        itemNameSuggestions.recordForCurrentUser(itemNames);
+        listVersionCache.bumpList(groceryList.getId());
+        listVersionCache.bumpCurrentUser();
     }
 
 }
@@ -0,0 +1,372 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import com.marcus.grocerylist.dto.ListChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in write-behind for completed/quantity changes from PUT /items/{id}, for clients that tick
+ * items on and off faster than each change needs its own transaction.
+ *
+ * Queued changes are acknowledged at once and kept per item id, so repeated changes to one item
+ * collapse into its latest values. They are written every items.write-behind.flush-interval, or as
+ * soon as items.write-behind.batch-size items are waiting, through the same grouped UPDATEs as
+ * PATCH /items/batch. Every change is first appended to a local journal that is replayed on
+ * startup. With items.write-behind.sync-journal the append is forced to disk, so the change
+ * survives a power loss. Without it the change survives a crash of the process only.
+ *
+ * Each change carries the item version it was read at. A flush writes it only while the item still
+ * has that version, so a synchronous write that landed after the change was queued wins and the
+ * queued change is dropped, as is one for an item deleted meanwhile.
+ */
+@Service
+public class ItemWriteBehind implements MeterBinder, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ItemWriteBehind.class);
+
+    private final ItemService itemService;
+    private final ListVersionCache listVersionCache;
+    private final ListEventBus listEventBus;
+    private final boolean enabled;
+    private final int batchSize;
+    private final boolean syncJournal;
+    private final Path journal;
+    // The journal segment whose changes are being written, kept until they are committed
+    private final Path flushing;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // Guards pending and channel, so the journal always holds at least what pending does
+    private final Object lock = new Object();
+    private Map<Long, Change> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+
+    private Counter coalesced;
+    private Counter stale;
+    private Timer flushLag;
+
+    public ItemWriteBehind(ItemService itemService, ListVersionCache listVersionCache, ListEventBus listEventBus,
+                           @Value("${items.write-behind.enabled:false}") boolean enabled,
+                           @Value("${items.write-behind.journal:data/item-write-behind.journal}") Path journal,
+                           @Value("${items.write-behind.flush-interval:200ms}") Duration flushInterval,
+                           @Value("${items.write-behind.batch-size:500}") int batchSize,
+                           @Value("${items.write-behind.sync-journal:false}") boolean syncJournal) {
+        this.itemService = itemService;
+        this.listVersionCache = listVersionCache;
+        this.listEventBus = listEventBus;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.syncJournal = syncJournal;
+        this.journal = journal;
+        this.flushing = journal.resolveSibling(journal.getFileName() + ".flushing");
+        if (!enabled) {
+            this.flusher = null;
+            return;
+        }
+        replay();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("item-write-behind-");
+        threadFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The caller has checked that the item belongs to ownerId, and read it at version
+    public void enqueue(long itemId, long listId, long ownerId, long version, boolean completed, int quantity) {
+        int waiting;
+        synchronized (lock) {
+            Change previous = pending.get(itemId);
+            Change change = new Change(itemId, listId, ownerId, version, completed, quantity,
+                    previous != null ? previous.queuedAt() : System.nanoTime());
+            append(List.of(change));
+            pending.put(itemId, change);
+            waiting = pending.size();
+            pendingCount.set(waiting);
+            if (previous != null && coalesced != null) {
+                coalesced.increment();
+            }
+        }
+        if (waiting >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Writes everything queued so far. Runs on the flusher thread, one flush at a time. On failure
+     * the changes go back into the queue, behind any newer ones for the same items, and are retried
+     * on the next run. Changes queued during the flush against the version it replaced are moved on
+     * to the new one; the write-behind does not count as someone else's write.
+     */
+    void flush() {
+        flushRequested.set(false);
+        Map<Long, Change> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            rotate();
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            pendingCount.set(0);
+        }
+        Set<Long> written;
+        try {
+            Map<Long, Long> versions = new LinkedHashMap<>();
+            batch.forEach((id, change) -> versions.put(id, change.version()));
+            written = itemService.applyQueuedPatches(batch.values().stream().map(Change::toPatch).toList(), versions);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                List<Change> requeued = new ArrayList<>();
+                batch.forEach((id, change) -> {
+                    if (!pending.containsKey(id)) {
+                        requeued.add(change);
+                    }
+                });
+                append(requeued);
+                Map<Long, Change> merged = new LinkedHashMap<>();
+                requeued.forEach(change -> merged.put(change.itemId(), change));
+                merged.putAll(pending);
+                pending = merged;
+                pendingCount.set(merged.size());
+            }
+            deleteFlushing();
+            throw e;
+        }
+        synchronized (lock) {
+            List<Change> advanced = new ArrayList<>();
+            for (Long id : written) {
+                Change queued = pending.get(id);
+                if (queued != null && queued.version() == batch.get(id).version()) {
+                    advanced.add(queued.withVersion(queued.version() + 1));
+                }
+            }
+            append(advanced);
+            advanced.forEach(change -> pending.put(change.itemId(), change));
+        }
+        deleteFlushing();
+
+        if (stale != null) {
+            stale.increment(batch.size() - written.size());
+        }
+        long now = System.nanoTime();
+        Map<Long, List<Long>> byList = new LinkedHashMap<>();
+        Set<Long> owners = new LinkedHashSet<>();
+        for (Change change : batch.values()) {
+            if (!written.contains(change.itemId())) {
+                continue;
+            }
+            if (flushLag != null) {
+                flushLag.record(now - change.queuedAt(), TimeUnit.NANOSECONDS);
+            }
+            byList.computeIfAbsent(change.listId(), id -> new ArrayList<>()).add(change.itemId());
+            owners.add(change.ownerId());
+        }
+        byList.forEach((listId, ids) -> {
+            listVersionCache.bumpList(listId);
+            listEventBus.publish(new ListChangeEvent(listId, ids, List.of(), false));
+        });
+        owners.forEach(listVersionCache::bumpOwner);
+    }
+
+    // An exception would cancel the scheduled task, so failures are only logged here
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush failed, {} items stay queued: {}", pendingCount.get(), e.getMessage());
+        }
+    }
+
+    // The queued changes left by the previous run are read back and compacted into a fresh journal
+    private void replay() {
+        Map<Long, Change> replayed = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(journal.toAbsolutePath().getParent());
+            read(flushing, replayed);
+            read(journal, replayed);
+            Path compacted = journal.resolveSibling(journal.getFileName() + ".tmp");
+            Files.write(compacted, lines(replayed.values()));
+            Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(flushing);
+            channel = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind journal " + journal, e);
+        }
+        pending = replayed;
+        pendingCount.set(replayed.size());
+        if (!replayed.isEmpty()) {
+            log.info("Replaying {} queued item changes from {}", replayed.size(), journal);
+        }
+    }
+
+    private static void read(Path file, Map<Long, Change> into) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            Change change = Change.parse(line, now);
+            // A torn last line from a crash mid-append is skipped
+            if (change != null) {
+                into.put(change.itemId(), change);
+            }
+        }
+    }
+
+    private void append(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines(changes));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncJournal) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to write-behind journal " + journal, e);
+        }
+    }
+
+    // Moves the journal aside for the flush in progress and starts a new one for changes queued meanwhile
+    private void rotate() {
+        try {
+            channel.close();
+            Files.move(journal, flushing, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate write-behind journal " + journal, e);
+        } finally {
+            reopen();
+        }
+    }
+
+    private void reopen() {
+        try {
+            channel = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind journal " + journal, e);
+        }
+    }
+
+    private void deleteFlushing() {
+        try {
+            Files.deleteIfExists(flushing);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static byte[] lines(Iterable<Change> changes) {
+        StringBuilder lines = new StringBuilder();
+        changes.forEach(change -> lines.append(change.format()).append('\n'));
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // queuedAt is the first unflushed change to the item, so the flush lag covers the whole wait
+    record Change(long itemId, long listId, long ownerId, long version, boolean completed, int quantity, long queuedAt) {
+        String format() {
+            return itemId + "," + listId + "," + ownerId + "," + version + "," + completed + "," + quantity;
+        }
+
+        static Change parse(String line, long queuedAt) {
+            String[] fields = line.split(",");
+            if (fields.length != 6) {
+                return null;
+            }
+            try {
+                return new Change(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Boolean.parseBoolean(fields[4]), Integer.parseInt(fields[5]), queuedAt);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        Change withVersion(long version) {
+            return new Change(itemId, listId, ownerId, version, completed, quantity, queuedAt);
+        }
+
+        ItemPatchRequest toPatch() {
+            ItemPatchRequest patch = new ItemPatchRequest();
+            patch.setId(itemId);
+            patch.setCompleted(completed);
+            patch.setQuantity(quantity);
+            return patch;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.write-behind.pending", pendingCount, AtomicInteger::get)
+                .description("Items with changes acknowledged but not yet written")
+                .register(registry);
+        coalesced = Counter.builder("items.write-behind.coalesced")
+                .description("Queued item changes replaced by a newer change before they were written")
+                .register(registry);
+        stale = Counter.builder("items.write-behind.stale")
+                .description("Queued item changes dropped because the item was written or deleted after they were queued")
+                .register(registry);
+        flushLag = Timer.builder("items.write-behind.flush-lag")
+                .description("Time from acknowledging an item change to committing it")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // Writes what is still queued; if that fails, the journal keeps it for the next start
+    @Override
+    public void destroy() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+        synchronized (lock) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Cannot close write-behind journal {}: {}", journal, e.getMessage());
+            }
+        }
+    }
+}
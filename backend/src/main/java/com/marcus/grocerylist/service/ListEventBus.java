@@ -0,0 +1,331 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.ListChangeEvent;
+import com.marcus.grocerylist.exception.SubscriptionLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of item changes to server-sent event subscribers of a list.
+ *
+ * Publishing never blocks on a client. Each subscriber keeps at most one pending event, into which
+ * later changes are merged until a dispatcher thread gets to send it, so a slow client receives
+ * fewer, larger events. Once the pending ids exceed events.max-pending-ids they are dropped for a
+ * single reload event. Only changes made through this instance are seen.
+ *
+ * Sends are blocking servlet writes. A send still running after events.send-timeout marks a stalled
+ * client: it is dropped, and the dispatcher gets an extra thread until the stuck write returns, so
+ * the other subscribers keep all of events.dispatcher-threads. Streams are capped per instance by
+ * events.max-subscribers and per user by events.max-subscribers-per-user; a slot is reserved before
+ * the subscriber is registered.
+ */
+@Service
+public class ListEventBus implements MeterBinder, DisposableBean {
+    static final String CHANGE_EVENT = "change";
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Map<Long, Integer> subscribersPerUser = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final int maxPendingIds;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerUser;
+    private final Duration emitterTimeout;
+    private final long sendTimeoutNanos;
+    private Counter coalesced;
+    private Counter reloads;
+    private Counter stalled;
+
+    public ListEventBus(@Value("${events.dispatcher-threads:4}") int dispatcherThreads,
+                        @Value("${events.max-pending-ids:256}") int maxPendingIds,
+                        @Value("${events.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${events.max-subscribers-per-user:20}") int maxSubscribersPerUser,
+                        @Value("${events.emitter-timeout:30m}") Duration emitterTimeout,
+                        @Value("${events.send-timeout:PT10S}") Duration sendTimeout) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("list-events-");
+        threadFactory.setDaemon(true);
+        // Unbounded queue, but each subscriber is queued at most once, so it never holds more than max-subscribers tasks
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.maxPendingIds = maxPendingIds;
+        this.maxSubscribers = maxSubscribers;
+        this.maxSubscribersPerUser = maxSubscribersPerUser;
+        this.emitterTimeout = emitterTimeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+    }
+
+    public SseEmitter subscribe(Long listId, Long userId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        register(listId, userId, emitter);
+        return emitter;
+    }
+
+    // Lets writers skip the lookups that only serve notifications when nobody is listening
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    public void publish(ListChangeEvent event) {
+        Set<Subscriber> listSubscribers = subscribers.get(event.getListId());
+        if (listSubscribers != null) {
+            listSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    // Keeps proxies from closing idle connections and finds clients that went away without a FIN
+    @Scheduled(fixedDelayString = "${events.heartbeat-interval:PT25S}", initialDelayString = "${events.heartbeat-interval:PT25S}")
+    public void heartbeat() {
+        subscribers.values().forEach(listSubscribers -> listSubscribers.forEach(Subscriber::ping));
+    }
+
+    // A stalled send is found between one and two send timeouts after it started
+    @Scheduled(fixedDelayString = "${events.send-timeout:PT10S}", initialDelayString = "${events.send-timeout:PT10S}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(listSubscribers -> listSubscribers.forEach(subscriber -> subscriber.dropIfStalled(now)));
+    }
+
+    void register(Long listId, Long userId, SseEmitter emitter) {
+        reserveSlot(userId);
+        Subscriber subscriber = new Subscriber(listId, userId, emitter);
+        subscribers.computeIfAbsent(listId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+    }
+
+    private void reserveSlot(Long userId) {
+        int open;
+        do {
+            open = subscriberCount.get();
+            if (open >= maxSubscribers) {
+                throw new SubscriptionLimitException("Too many open event streams, poll instead", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        } while (!subscriberCount.compareAndSet(open, open + 1));
+
+        boolean[] reserved = new boolean[1];
+        subscribersPerUser.compute(userId, (id, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxSubscribersPerUser) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        if (!reserved[0]) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriptionLimitException("Too many open event streams for this user", HttpStatus.TOO_MANY_REQUESTS);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.listId, (id, listSubscribers) -> {
+            removed[0] = listSubscribers.remove(subscriber);
+            return listSubscribers.isEmpty() ? null : listSubscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+            subscribersPerUser.computeIfPresent(subscriber.userId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // Growing raises the maximum first and shrinking lowers the core first, so core never exceeds maximum
+    private void resizeDispatcher(int delta) {
+        synchronized (dispatcher) {
+            if (delta > 0) {
+                dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+                dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+            } else {
+                dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+                dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final Long listId;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Set<Long> changed = new LinkedHashSet<>();
+        private final Set<Long> deleted = new LinkedHashSet<>();
+        private boolean reload;
+        private boolean heartbeat;
+        private boolean pending;
+        private boolean scheduled;
+        private boolean stalledSend;
+        // System.nanoTime() when the send in progress started, 0 between sends
+        private volatile long sendStartedAt;
+
+        private Subscriber(Long listId, Long userId, SseEmitter emitter) {
+            this.listId = listId;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(ListChangeEvent event) {
+            if (pending && coalesced != null) {
+                coalesced.increment();
+            }
+            pending = true;
+            if (event.isReload()) {
+                overflow();
+            } else if (!reload) {
+                for (Long id : event.getChanged()) {
+                    if (!deleted.contains(id)) {
+                        changed.add(id);
+                    }
+                }
+                for (Long id : event.getDeleted()) {
+                    changed.remove(id);
+                    deleted.add(id);
+                }
+                if (changed.size() + deleted.size() > maxPendingIds) {
+                    overflow();
+                }
+            }
+            schedule();
+        }
+
+        synchronized void ping() {
+            heartbeat = true;
+            schedule();
+        }
+
+        private void overflow() {
+            if (!reload && reloads != null) {
+                reloads.increment();
+            }
+            reload = true;
+            changed.clear();
+            deleted.clear();
+        }
+
+        private void schedule() {
+            if (!scheduled) {
+                scheduled = true;
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        // The emitter cannot be completed from here: that waits for the send holding its write lock
+        void dropIfStalled(long now) {
+            long started = sendStartedAt;
+            if (started == 0 || now - started < sendTimeoutNanos) {
+                return;
+            }
+            synchronized (this) {
+                if (stalledSend) {
+                    return;
+                }
+                stalledSend = true;
+            }
+            remove(this);
+            resizeDispatcher(1);
+            if (stalled != null) {
+                stalled.increment();
+            }
+        }
+
+        // Runs on one dispatcher thread at a time per subscriber; offers made while a send blocks
+        // are merged and go out on the next pass
+        private void drain() {
+            while (true) {
+                ListChangeEvent event = null;
+                synchronized (this) {
+                    if (pending) {
+                        event = new ListChangeEvent(listId, new ArrayList<>(changed), new ArrayList<>(deleted), reload);
+                    } else if (!heartbeat) {
+                        scheduled = false;
+                        return;
+                    }
+                    changed.clear();
+                    deleted.clear();
+                    reload = false;
+                    pending = false;
+                    heartbeat = false;
+                }
+                try {
+                    sendStartedAt = System.nanoTime();
+                    if (event != null) {
+                        emitter.send(SseEmitter.event().name(CHANGE_EVENT).data(event, MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client is gone; stay "scheduled" so nothing is queued for it again
+                    sendStartedAt = 0;
+                    remove(this);
+                    releaseStalledThread();
+                    emitter.completeWithError(e);
+                    return;
+                }
+                sendStartedAt = 0;
+                if (releaseStalledThread()) {
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+
+        // After a send that was declared stalled, gives back the thread added for it; the subscriber
+        // is already removed and stays "scheduled", so nothing is queued for it again
+        private boolean releaseStalledThread() {
+            synchronized (this) {
+                if (!stalledSend) {
+                    return false;
+                }
+            }
+            resizeDispatcher(-1);
+            return true;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(dispatcher, "list-events", Tags.empty()).bindTo(registry);
+        Gauge.builder("events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open server-sent event subscriptions")
+                .register(registry);
+        coalesced = Counter.builder("events.coalesced")
+                .description("List changes merged into an event that was still waiting to be sent")
+                .register(registry);
+        reloads = Counter.builder("events.reloads")
+                .description("Pending events replaced by a reload because the subscriber fell too far behind")
+                .register(registry);
+        stalled = Counter.builder("events.stalled")
+                .description("Subscribers dropped because a send took longer than events.send-timeout")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.values().forEach(listSubscribers -> listSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        dispatcher.shutdownNow();
+    }
+}
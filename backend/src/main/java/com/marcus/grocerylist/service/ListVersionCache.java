@@ -0,0 +1,96 @@
+package com.marcus.grocerylist.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters behind the ETags of GET /lists and GET /items/list/{id}, so a
+ * conditional GET is answered from memory without reading the lists or items.
+ *
+ * Every bump takes the next value of one sequence, and a counter that is missing (never read,
+ * evicted or expired) is given a fresh one, so a version is never reused. Tags also carry an id
+ * for this process, since the sequence restarts with it. Counters are per instance: the TTL
+ * bounds how long another instance can keep answering 304 after a write it did not see.
+ */
+@Service
+public class ListVersionCache implements MeterBinder {
+    private final String bootId = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    // Items of one list
+    private final Cache<Long, Long> listVersions;
+    // A user's lists, plus item writes made by item id where the list is not known without a query
+    private final Cache<Long, Long> ownerVersions;
+
+    public ListVersionCache(@Value("${etag.version-cache.ttl:10m}") Duration ttl,
+                            @Value("${etag.version-cache.max-size:100000}") long maxSize) {
+        this.listVersions = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().build();
+        this.ownerVersions = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().build();
+    }
+
+    public String listsEtag(Long userId) {
+        return "\"" + bootId + "-" + version(ownerVersions, userId) + "\"";
+    }
+
+    public String itemsEtag(Long listId, Long ownerId) {
+        return "\"" + bootId + "-" + version(listVersions, listId) + "-" + version(ownerVersions, ownerId) + "\"";
+    }
+
+    public void bumpList(Long listId) {
+        afterCommit(() -> listVersions.put(listId, sequence.incrementAndGet()));
+    }
+
+    public void bumpOwner(Long userId) {
+        afterCommit(() -> ownerVersions.put(userId, sequence.incrementAndGet()));
+    }
+
+    // For writes that only know the item ids; the caller has already checked they belong to the current user
+    public void bumpCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            bumpOwner(principal.getId());
+        } else {
+            afterCommit(() -> {
+                listVersions.invalidateAll();
+                ownerVersions.invalidateAll();
+            });
+        }
+    }
+
+    private Long version(Cache<Long, Long> versions, Long key) {
+        return versions.get(key, k -> sequence.incrementAndGet());
+    }
+
+    // Readers take the version before loading the rows, so bumping before the commit could pair the
+    // new version with the old rows and have clients keep them
+    private static void afterCommit(Runnable bump) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, listVersions, "list-versions");
+        CaffeineCacheMetrics.monitor(registry, ownerVersions, "owner-versions");
+    }
+}
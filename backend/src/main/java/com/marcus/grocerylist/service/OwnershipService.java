@@ -0,0 +1,70 @@
+package com.marcus.grocerylist.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Answers "who owns list X / item Y" with a single indexed query instead of loading the
+ * entity graph. A list never changes owner, so list owners are memoized for a short time
+ * and dropped when the list is deleted.
+ */
+@Service
+public class OwnershipService implements MeterBinder {
+    private final GroceryListRepository groceryListRepository;
+    private final ItemRepository itemRepository;
+    private final Cache<Long, Long> listOwners;
+
+    public OwnershipService(GroceryListRepository groceryListRepository,
+                            ItemRepository itemRepository,
+                            @Value("${security.ownership-cache.ttl:30s}") Duration ttl,
+                            @Value("${security.ownership-cache.max-size:10000}") long maxSize) {
+        this.groceryListRepository = groceryListRepository;
+        this.itemRepository = itemRepository;
+        this.listOwners = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Long> findListOwnerId(Long listId) {
+        Long ownerId = listOwners.getIfPresent(listId);
+        if (ownerId != null) {
+            return Optional.of(ownerId);
+        }
+        Optional<Long> found = groceryListRepository.findOwnerIdById(listId);
+        found.ifPresent(id -> listOwners.put(listId, id));
+        return found;
+    }
+
+    public boolean isListOwner(Long listId, Long userId) {
+        return findListOwnerId(listId).map(ownerId -> ownerId.equals(userId)).orElse(false);
+    }
+
+    public Optional<Long> findItemOwnerId(Long itemId) {
+        return itemRepository.findOwnerIdById(itemId);
+    }
+
+    public boolean isItemOwner(Long itemId, Long userId) {
+        return findItemOwnerId(itemId).map(ownerId -> ownerId.equals(userId)).orElse(false);
+    }
+
+    public void evictList(Long listId) {
+        listOwners.invalidate(listId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, listOwners, "list-owners");
+    }
+}
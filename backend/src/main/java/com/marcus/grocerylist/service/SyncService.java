@@ -0,0 +1,72 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.SyncDeletion;
+import com.marcus.grocerylist.dto.SyncResponse;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ItemRepository;
+import com.marcus.grocerylist.repository.TombstoneRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Answers "what changed since my watermark" from the updated_at columns and the tombstones table,
+ * so the work done is proportional to the changes rather than to the size of the lists.
+ */
+@Service
+@Timed(value = "grocerylist.service", histogram = true)
+public class SyncService {
+
+    private final GroceryListRepository groceryListRepository;
+    private final ItemRepository itemRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final Duration commitLag;
+    private final Duration tombstoneRetention;
+
+    public SyncService(GroceryListRepository groceryListRepository, ItemRepository itemRepository,
+                       TombstoneRepository tombstoneRepository,
+                       @Value("${sync.commit-lag:5s}") Duration commitLag,
+                       @Value("${sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.groceryListRepository = groceryListRepository;
+        this.itemRepository = itemRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.commitLag = commitLag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * updated_at is stamped before commit, so a slow transaction can become visible after a later
+     * one. The returned watermark therefore trails the clock by sync.commit-lag, and rows from that
+     * window are sent again on the next call; clients apply them idempotently.
+     *
+     * Deliberately not a @ReplicaRead: a replica can be further behind than commit-lag, and rows
+     * it has not replayed yet would fall below the watermark and never be sent.
+     */
+    @Transactional(readOnly = true)
+    public SyncResponse changesSince(Long userId, Long sinceMillis) {
+        Instant now = Instant.now();
+        boolean full = sinceMillis == null
+                || Instant.ofEpochMilli(sinceMillis).isBefore(now.minus(tombstoneRetention));
+        Instant since = full ? Instant.EPOCH : Instant.ofEpochMilli(sinceMillis);
+
+        List<GroceryList> lists = groceryListRepository.findByUserIdAndUpdatedAtAfterOrderByIdAsc(userId, since);
+        List<Item> items = itemRepository.findChangedSince(userId, since);
+        // A full sync replaces the client's state, so there is nothing to delete
+        List<SyncDeletion> deleted = full ? List.of() : tombstoneRepository.findDeletionsSince(userId, since);
+
+        return new SyncResponse(now.minus(commitLag).toEpochMilli(), full, lists, items, deleted);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.tombstone-purge-interval:PT6H}", initialDelayString = "${sync.tombstone-purge-interval:PT6H}")
+    public void purgeTombstones() {
+        tombstoneRepository.deleteOlderThan(Instant.now().minus(tombstoneRetention));
+    }
+}
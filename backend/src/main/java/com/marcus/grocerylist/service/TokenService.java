@@ -0,0 +1,95 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.AuthResponse;
+import com.marcus.grocerylist.jwt.JwtUtil;
+import com.marcus.grocerylist.jwt.TokenRevocationList;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues access/refresh token pairs, rotates them on refresh and revokes them on logout.
+ * Each refresh token works once: using it revokes its id, so a replayed copy is rejected.
+ */
+@Service
+public class TokenService {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserRepository userRepository;
+
+    public TokenService(JwtUtil jwtUtil, TokenRevocationList tokenRevocationList, UserRepository userRepository) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationList = tokenRevocationList;
+        this.userRepository = userRepository;
+    }
+
+    public AuthResponse issue(String username, Long userId) {
+        return new AuthResponse(
+                jwtUtil.generateToken(username, userId),
+                jwtUtil.generateRefreshToken(username, userId),
+                jwtUtil.getAccessTokenTtl().toSeconds());
+    }
+
+    // Not transactional: the revocation insert must commit on its own, and a duplicate key there
+    // has to surface here rather than poison an outer transaction
+    public AuthResponse refresh(String refreshToken) {
+        Claims claims = parse(refreshToken, JwtUtil.REFRESH_TOKEN);
+        if (claims == null || tokenRevocationList.isRevokedAnywhere(claims.getId())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        // Unlike the per-request path, refresh is rare enough to read the user from the database
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        User user = userRepository.findById(userId)
+                .filter(u -> u.getUsername().equals(claims.getSubject()))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        if (JwtUtil.issuedBefore(claims, user.getCredentialsChangedAt())) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        try {
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().toInstant());
+        } catch (DataIntegrityViolationException e) {
+            // Another request redeemed the same token first
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return issue(user.getUsername(), user.getId());
+    }
+
+    /**
+     * Revokes whichever of the two tokens is valid. Missing or invalid tokens are ignored, so
+     * logging out twice is harmless.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        revoke(parse(accessToken, JwtUtil.ACCESS_TOKEN));
+        revoke(parse(refreshToken, JwtUtil.REFRESH_TOKEN));
+    }
+
+    private void revoke(Claims claims) {
+        if (claims == null || tokenRevocationList.isRevoked(claims.getId())) {
+            return;
+        }
+        try {
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().toInstant());
+        } catch (DataIntegrityViolationException e) {
+            // Already revoked on another instance
+        }
+    }
+
+    private Claims parse(String token, String expectedType) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            return expectedType.equals(claims.get(JwtUtil.TOKEN_TYPE_CLAIM, String.class)) ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.marcus.grocerylist.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated user as seen by the security layer. Carries the user id so controllers
+ * can resolve the current user without another lookup. Instances served from the
+ * principal cache never hold the password hash. credentialsChangedAt lets the JWT filter
+ * reject tokens issued before a password change without going to the database.
+ */
+public class UserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+    private final Instant credentialsChangedAt;
+
+    public UserPrincipal(Long id, String username, String password, List<GrantedAuthority> authorities) {
+        this(id, username, password, authorities, null);
+    }
+
+    public UserPrincipal(Long id, String username, List<GrantedAuthority> authorities) {
+        this(id, username, null, authorities, null);
+    }
+
+    public UserPrincipal(Long id, String username, String password, List<GrantedAuthority> authorities,
+                         Instant credentialsChangedAt) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+        this.credentialsChangedAt = credentialsChangedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getCredentialsChangedAt() {
+        return credentialsChangedAt;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -4,25 +4,32 @@ import com.marcus.grocerylist.exception.ResourceNotFoundException;
 import com.marcus.grocerylist.exception.UserAlreadyExistsException;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
 import com.marcus.grocerylist.exception.UnauthorizedAccessException;
+import java.time.Instant;
 import java.util.Optional;
 
 @Service
+@Timed(value = "grocerylist.service", histogram = true)
 public class UserService {
     @Autowired
     private UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final PrincipalCache principalCache;
+
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     public Optional<User> findById(Long id) {
@@ -33,6 +40,21 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    // Builds a detached user carrying only id and username from the authenticated principal.
+    // Enough for ownership checks and for setting foreign keys, without querying the users table.
+    public User getCurrentUserReference() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            User user = new User();
+            user.setId(userPrincipal.getId());
+            user.setUsername(userPrincipal.getUsername());
+            return user;
+        }
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -49,7 +71,8 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
-    @Transactional
+    // Not transactional on purpose: the hash can take a while to come back from the hashing executor,
+    // and there is no reason to hold a database connection for it. The unique constraints still apply.
     public User registerNewUser(User user){
         if(userRepository.existsByUsername(user.getUsername())){
             throw new UserAlreadyExistsException("Username " + user.getUsername() + " already exist.");
@@ -75,6 +98,7 @@ public class UserService {
             throw new UnauthorizedAccessException("You are not authorized to delete this user.");
         }
         userRepository.deleteById(userId);
+        principalCache.invalidate(deleteUser.getUsername());
     }
 
     @Transactional
@@ -84,6 +108,7 @@ public class UserService {
              throw new ResourceNotFoundException("User not found with ID: " + userId);
          }
          User updateUser = user.get();
+         String previousUsername = updateUser.getUsername();
          String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
         if (!updateUser.getUsername().equals(currentUsername)) {
             throw new UnauthorizedAccessException("You are not authorized to update this user's profile.");
@@ -105,9 +130,13 @@ public class UserService {
 
         if (updatedUserInfo.getPassword() != null && !updatedUserInfo.getPassword().isEmpty()) {
             updateUser.setPassword(passwordEncoder.encode(updatedUserInfo.getPassword()));
+            // Signs out every session: access and refresh tokens issued before now stop working
+            updateUser.setCredentialsChangedAt(Instant.now());
         }
 
-        return userRepository.save(updateUser);
+        User savedUser = userRepository.save(updateUser);
+        principalCache.invalidate(previousUsername);
+        return savedUser;
     }
 
 }
\ No newline at end of file
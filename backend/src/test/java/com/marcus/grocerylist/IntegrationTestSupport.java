@@ -0,0 +1,74 @@
+package com.marcus.grocerylist;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcus.grocerylist.jwt.JwtUtil;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ItemRepository;
+import com.marcus.grocerylist.repository.TombstoneRepository;
+import com.marcus.grocerylist.repository.UserRepository;
+import com.marcus.grocerylist.service.OwnershipService;
+import com.marcus.grocerylist.service.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Users, lists and items for the MockMvc integration tests. Subclasses keep their own
+ * {@code @SpringBootTest} and {@code @AutoConfigureMockMvc}; whatever they add in their own
+ * {@code @AfterEach} runs before the rows here are deleted.
+ */
+public abstract class IntegrationTestSupport {
+
+    @Autowired
+    protected MockMvc mockMvc;
+    @Autowired
+    protected ObjectMapper objectMapper;
+    @Autowired
+    protected JwtUtil jwtUtil;
+    @Autowired
+    protected UserRepository userRepository;
+    @Autowired
+    protected GroceryListRepository groceryListRepository;
+    @Autowired
+    protected ItemRepository itemRepository;
+    @Autowired
+    protected TombstoneRepository tombstoneRepository;
+    @Autowired
+    protected PrincipalCache principalCache;
+    @Autowired
+    protected OwnershipService ownershipService;
+
+    private final List<String> usernames = new ArrayList<>();
+
+    @BeforeEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void deleteFixtures() {
+        // The ownership and principal caches outlive the rows, and ids and usernames repeat across tests
+        groceryListRepository.findAll().forEach(l -> ownershipService.evictList(l.getId()));
+        tombstoneRepository.deleteAll();
+        itemRepository.deleteAll();
+        groceryListRepository.deleteAll();
+        userRepository.deleteAll();
+        usernames.forEach(principalCache::invalidate);
+        usernames.clear();
+    }
+
+    protected User createUser(String username, String email) {
+        usernames.add(username);
+        return userRepository.save(new User(username, "encodedPass", email));
+    }
+
+    protected String bearer(User user) {
+        return "Bearer " + jwtUtil.generateToken(user.getUsername(), user.getId());
+    }
+}
@@ -0,0 +1,43 @@
+package com.marcus.grocerylist.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActuatorAuthenticationProviderTest {
+
+    @Test
+    void testConfiguredAccountIsAuthenticated() {
+        ActuatorAuthenticationProvider provider = new ActuatorAuthenticationProvider("prometheus", "scrape-secret");
+
+        Authentication result = provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "scrape-secret"));
+
+        assertTrue(result.isAuthenticated());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_ACTUATOR"), result.getAuthorities());
+        assertNull(result.getCredentials());
+    }
+
+    @Test
+    void testWrongCredentialsAreRejected() {
+        ActuatorAuthenticationProvider provider = new ActuatorAuthenticationProvider("prometheus", "scrape-secret");
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "scrape-secre")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("grafana", "scrape-secret")));
+    }
+
+    @Test
+    void testAccountWithoutAPasswordIsDisabled() {
+        ActuatorAuthenticationProvider provider = new ActuatorAuthenticationProvider("prometheus", "");
+
+        assertFalse(provider.isEnabled());
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "")));
+    }
+}
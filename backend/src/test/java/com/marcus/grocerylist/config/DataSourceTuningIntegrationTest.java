@@ -0,0 +1,37 @@
+package com.marcus.grocerylist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmupdb;DB_CLOSE_DELAY=-1",
+        "datasource.pool.connections-per-core=2",
+        "datasource.pool.spare-connections=1",
+        "spring.datasource.hikari.minimum-idle=3",
+        "datasource.warmup.enabled=true"
+})
+@ActiveProfiles("test")
+class DataSourceTuningIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testPoolSizeIsDerivedFromTheCoreCount() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        assertEquals(Runtime.getRuntime().availableProcessors() * 2 + 1, pool.getMaximumPoolSize());
+    }
+
+    @Test
+    void testPoolIsFilledToMinimumIdleBeforeStartupCompletes() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        assertTrue(pool.getHikariPoolMXBean().getTotalConnections() >= 3);
+    }
+}
@@ -0,0 +1,83 @@
+package com.marcus.grocerylist.config;
+
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gatedb;DB_CLOSE_DELAY=-1",
+        "db.gate.enabled=true",
+        "db.gate.permits=2",
+        "db.gate.acquire-timeout=2s"
+})
+@ActiveProfiles("test")
+class DatabaseConcurrencyGateIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testDataSourceIsGatedButStillUnwrapsToHikari() throws Exception {
+        assertFalse(dataSource instanceof HikariDataSource);
+        assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+    }
+
+    @Test
+    void testConnectionBeyondPermitsTimesOutUntilOneIsClosed() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        // Closing twice must not hand out an extra permit
+        first.close();
+        try (Connection third = dataSource.getConnection()) {
+            assertTrue(third.isValid(1));
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void testManyConcurrentCallersAllCompleteThroughTheGate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<User>> saves = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String name = "gateUser" + i;
+                saves.add(executor.submit(() -> userRepository.save(new User(name, "encodedPass", name + "@example.com"))));
+            }
+            for (Future<User> save : saves) {
+                assertNotNull(save.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(64, userRepository.count());
+    }
+}
@@ -0,0 +1,126 @@
+package com.marcus.grocerylist.config;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyKeyFilterIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("idempotentUser", "idempotent@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testRetriedCreateIsReplayedInsteadOfInsertedAgain() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("name", "Milk", "groceryListId", list.getId(), "quantity", 1));
+
+        String first = mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "create-milk-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyKeyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        String retry = mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "create-milk-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyKeyFilter.REPLAYED_HEADER, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(1, itemRepository.countByGroceryListId(list.getId()));
+    }
+
+    @Test
+    void testBatchCreateAndListCreateAreDeduplicated() throws Exception {
+        String batch = objectMapper.writeValueAsString(Map.of("groceryListId", list.getId(), "itemNames", List.of("Eggs", "Bread")));
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/items/batch-create").header("Authorization", authHeader)
+                            .header(IdempotencyKeyFilter.HEADER, "batch-1")
+                            .contentType(MediaType.APPLICATION_JSON).content(batch))
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                            .header(IdempotencyKeyFilter.HEADER, "list-1")
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Party\"}"))
+                    .andExpect(status().isCreated());
+        }
+
+        assertEquals(2, itemRepository.countByGroceryListId(list.getId()));
+        assertEquals(2, groceryListRepository.countByUserId(user.getId()));
+    }
+
+    @Test
+    void testReusingAKeyForADifferentBodyIsRejected() throws Exception {
+        mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "list-2")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Party\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "list-2")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Picnic\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testFailedRequestIsNotRemembered() throws Exception {
+        String invalid = objectMapper.writeValueAsString(Map.of("name", " ", "groceryListId", list.getId()));
+        String valid = objectMapper.writeValueAsString(Map.of("name", "Milk", "groceryListId", list.getId(), "quantity", 1));
+
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "create-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(invalid))
+                .andExpect(status().isBadRequest());
+        // A fixed request may reuse the key, since nothing was stored for it
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "create-2")
+                        .contentType(MediaType.APPLICATION_JSON).content(valid))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void testOversizedBodyIsRefusedBeforeItIsBuffered() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("name", "x".repeat(1024 * 1024), "groceryListId", list.getId()));
+
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .header(IdempotencyKeyFilter.HEADER, "create-huge")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(0, itemRepository.countByGroceryListId(list.getId()));
+    }
+
+    @Test
+    void testWithoutKeyEveryRequestCreates() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Party\"}"))
+                    .andExpect(status().isCreated());
+        }
+        assertEquals(3, groceryListRepository.countByUserId(user.getId()));
+    }
+}
@@ -0,0 +1,218 @@
+package com.marcus.grocerylist.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.service.GroceryListService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against two H2 databases: the primary, and a "replica" that each test fills with a copy of
+ * the primary and then edits, so which one answered is visible in the response. The lag the router
+ * sees comes from a table on the replica.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+        "datasource.replica.urls=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "datasource.replica.lag-query=select max(seconds) from replica_lag",
+        "datasource.replica.max-lag=5s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest extends IntegrationTestSupport {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+    @Autowired
+    private GroceryListService groceryListService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private GroceryList list;
+    private Item milk;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = createUser("replicaUser", "replica@example.com");
+        list = new GroceryList();
+        list.setName("On primary");
+        list.setUser(user);
+        list = groceryListService.saveList(list);
+        milk = itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+
+        copyPrimaryToReplica();
+        onReplica("update grocery_lists set name = 'On replica' where id = " + list.getId());
+        onReplica("update items set name = 'Replica milk' where id = " + milk.getId());
+        setReplicaLag(0);
+    }
+
+    @Test
+    void testReplicaReadsAreServedByTheReplica() throws Exception {
+        assertEquals(List.of("On replica"), streamedListNames());
+        assertEquals(List.of("Replica milk"), streamedItemNames());
+    }
+
+    @Test
+    void testReplicaRowsDoNotReachTheSecondLevelCache() throws Exception {
+        // A bulk write or the TTL leaves the region empty, which is when a load would be put there
+        entityManagerFactory.getCache().evict(Item.class);
+        setReplicaLag(4);
+        assertEquals(List.of("Replica milk"), streamedItemNames());
+
+        assertEquals("Milk", itemRepository.findById(milk.getId()).orElseThrow().getName());
+        JsonNode items = objectMapper.readTree(mockMvc.perform(get("/items/list/" + list.getId()).header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Milk", items.get(0).get("name").asText());
+    }
+
+    @Test
+    void testReadsThatCarryAnEtagStayOnThePrimary() throws Exception {
+        JsonNode lists = objectMapper.readTree(mockMvc.perform(get("/lists").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals("On primary", lists.get(0).get("name").asText());
+    }
+
+    @Test
+    void testReadsFallBackToThePrimaryWhenTheReplicaLagsTooFar() throws Exception {
+        setReplicaLag(60);
+        assertEquals(List.of("On primary"), streamedListNames());
+
+        setReplicaLag(1);
+        assertEquals(List.of("On replica"), streamedListNames());
+    }
+
+    @Test
+    void testReadsFallBackToThePrimaryWhenTheLagCannotBeChecked() throws Exception {
+        onReplica("drop table replica_lag");
+        replicaRouter.checkLag();
+
+        assertEquals(List.of("On primary"), streamedListNames());
+    }
+
+    @Test
+    void testWritesGoToThePrimary() throws Exception {
+        mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Created"))))
+                .andExpect(status().isCreated());
+
+        assertEquals(2, count(PRIMARY_URL, "select count(*) from grocery_lists"));
+        assertEquals(1, count(REPLICA_URL, "select count(*) from grocery_lists"));
+    }
+
+    @Test
+    void testPrincipalsAreLoadedFromThePrimary() throws Exception {
+        // A password change the replica has not replayed yet must still revoke the token
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement()) {
+            statement.execute("update users set credentials_changed_at = dateadd('HOUR', 1, current_timestamp) where id = " + user.getId());
+        }
+
+        mockMvc.perform(get("/lists").header("Authorization", authHeader))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private List<String> streamedListNames() throws Exception {
+        return streamedNames("/lists");
+    }
+
+    private List<String> streamedItemNames() throws Exception {
+        return streamedNames("/items/list/" + list.getId());
+    }
+
+    private List<String> streamedNames(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url).header("Authorization", authHeader)
+                        .header("Accept", "application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> names = new ArrayList<>();
+        for (String line : body.trim().split("\n")) {
+            names.add(objectMapper.readTree(line).get("name").asText());
+        }
+        return names;
+    }
+
+    private void setReplicaLag(int seconds) throws SQLException {
+        onReplica("create table if not exists replica_lag (seconds int)");
+        onReplica("delete from replica_lag");
+        onReplica("insert into replica_lag values (" + seconds + ")");
+        replicaRouter.checkLag();
+    }
+
+    // Stands in for replication: the replica's schema and rows are replaced by the primary's
+    private static void copyPrimaryToReplica() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet result = statement.executeQuery("script nopasswords nosettings")) {
+            while (result.next()) {
+                String sql = result.getString(1);
+                if (!sql.startsWith("CREATE USER")) {
+                    script.add(sql);
+                }
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static void onReplica(String sql) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static long count(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet result = statement.executeQuery()) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
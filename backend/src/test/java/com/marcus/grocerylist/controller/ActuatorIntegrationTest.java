@@ -0,0 +1,73 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class ActuatorIntegrationTest extends IntegrationTestSupport {
+
+    @Value("${actuator.username}")
+    private String scrapeUsername;
+    @Value("${actuator.password}")
+    private String scrapePassword;
+
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("metricsUser", "metrics@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testPrometheusRequiresScrapeCredentials() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", authHeader))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic(scrapeUsername, "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testPrometheusExposesRequestServiceAndDataSourceMetrics() throws Exception {
+        mockMvc.perform(get("/items/list/" + list.getId()).header("Authorization", authHeader))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(httpBasic(scrapeUsername, scrapePassword)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Route template, not the raw path, so every list shares one series
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("uri=\"/items/list/{listId}\""));
+        assertFalse(scrape.contains("uri=\"/items/list/" + list.getId() + "\""));
+        assertTrue(scrape.contains("grocerylist_service_seconds_count{"));
+        assertTrue(scrape.contains("method=\"getItemsByListId\""));
+        assertTrue(scrape.contains("hibernate_statements_total"));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket{"));
+        assertTrue(scrape.contains("cache_gets_total{"));
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -121,6 +122,7 @@ class AuthControllerIntegrationTest {
 
         User mockUser = new User();
         mockUser.setEmail(testUserEmail);
+        mockUser.setId(1L);
         mockUser.setUsername(actualUsernameInDb);
         mockUser.setPassword("encodedPassword");
 
@@ -133,20 +135,24 @@ class AuthControllerIntegrationTest {
         when(authenticationManager.authenticate(eq(new UsernamePasswordAuthenticationToken(actualUsernameInDb, loginRequest.getPassword()))))
                 .thenReturn(authentication);
 
-        when(jwtUtil.generateToken(actualUsernameInDb)).thenReturn(expectedToken);
+        when(jwtUtil.generateToken(actualUsernameInDb, 1L)).thenReturn(expectedToken);
+        when(jwtUtil.generateRefreshToken(actualUsernameInDb, 1L)).thenReturn("mocked.refresh.token");
+        when(jwtUtil.getAccessTokenTtl()).thenReturn(Duration.ofMinutes(15));
 
         mockMvc.perform(post("/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.token").value(expectedToken));
+                .andExpect(jsonPath("$.token").value(expectedToken))
+                .andExpect(jsonPath("$.refreshToken").value("mocked.refresh.token"))
+                .andExpect(jsonPath("$.expiresIn").value(900));
 
         verify(userService, times(1)).findByEmail(loginRequest.getEmail());
 
         verify(authenticationManager, times(1)).authenticate(
                 new UsernamePasswordAuthenticationToken(actualUsernameInDb, loginRequest.getPassword())
         );
-        verify(jwtUtil, times(1)).generateToken(actualUsernameInDb);
+        verify(jwtUtil, times(1)).generateToken(actualUsernameInDb, 1L);
     }
 
 }
\ No newline at end of file
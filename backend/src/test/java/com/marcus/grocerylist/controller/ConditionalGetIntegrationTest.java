@@ -0,0 +1,152 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private GroceryList list;
+    private Item milk;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = createUser("etagUser", "etag@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        milk = itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testMatchingEtagIsAnsweredWithoutQueries() throws Exception {
+        String url = "/items/list/" + list.getId();
+        String etag = etagOf(url);
+        assertTrue(etag.startsWith("\""), "Expected a strong ETag, got " + etag);
+
+        statistics.clear();
+        mockMvc.perform(get(url).header("Authorization", authHeader).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        String listsEtag = etagOf("/lists");
+        statistics.clear();
+        mockMvc.perform(get("/lists").header("Authorization", authHeader).header("If-None-Match", listsEtag))
+                .andExpect(status().isNotModified());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testEveryItemWriteChangesTheItemsEtag() throws Exception {
+        String url = "/items/list/" + list.getId();
+
+        String before = etagOf(url);
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Eggs", "groceryListId", list.getId(), "quantity", 1))))
+                .andExpect(status().isCreated());
+        before = assertChanged(url, before);
+
+        Item updated = new Item("Oat milk", list);
+        updated.setQuantity(2);
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updated)))
+                .andExpect(status().isOk());
+        before = assertChanged(url, before);
+
+        mockMvc.perform(patch("/items/batch").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("items", List.of(Map.of("id", milk.getId(), "completed", true))))))
+                .andExpect(status().isOk());
+        before = assertChanged(url, before);
+
+        mockMvc.perform(post("/items/batch-create").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("groceryListId", list.getId(), "itemNames", List.of("Bread")))))
+                .andExpect(status().isOk());
+        before = assertChanged(url, before);
+
+        mockMvc.perform(delete("/items/" + milk.getId()).header("Authorization", authHeader))
+                .andExpect(status().isNoContent());
+        assertChanged(url, before);
+    }
+
+    @Test
+    void testListWritesChangeTheListsEtag() throws Exception {
+        String before = etagOf("/lists");
+        mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Party"))))
+                .andExpect(status().isCreated());
+        before = assertChanged("/lists", before);
+
+        mockMvc.perform(put("/lists/" + list.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Monthly"))))
+                .andExpect(status().isOk());
+        before = assertChanged("/lists", before);
+
+        mockMvc.perform(delete("/lists/" + list.getId()).header("Authorization", authHeader))
+                .andExpect(status().isNoContent());
+        assertChanged("/lists", before);
+    }
+
+    @Test
+    void testEtagsAreNotSharedBetweenLists() throws Exception {
+        GroceryList other = groceryListRepository.save(new GroceryList("Other", user));
+        String etag = etagOf("/items/list/" + list.getId());
+
+        mockMvc.perform(get("/items/list/" + other.getId()).header("Authorization", authHeader).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url).header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+    }
+
+    private String assertChanged(String url, String previous) throws Exception {
+        mockMvc.perform(get(url).header("Authorization", authHeader).header("If-None-Match", previous))
+                .andExpect(status().isOk());
+        String current = etagOf(url);
+        assertNotEquals(previous, current);
+        return current;
+    }
+}
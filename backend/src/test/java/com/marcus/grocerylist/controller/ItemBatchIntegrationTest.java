@@ -0,0 +1,131 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemBatchIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("batchUser", "batch@example.com");
+        list = groceryListRepository.save(new GroceryList("Bulk", user));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testBatchCreateInsertsEveryItem() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            names.add("Item " + i);
+        }
+
+        mockMvc.perform(post("/items/batch-create")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("groceryListId", list.getId(), "itemNames", names))))
+                .andExpect(status().isOk());
+
+        List<Item> saved = itemRepository.findByGroceryListId(list.getId());
+        assertEquals(1000, saved.size());
+        assertTrue(saved.stream().allMatch(item -> item.getId() != null && !item.isCompleted()));
+    }
+
+    @Test
+    void testBatchCreateRejectsBlankName() throws Exception {
+        mockMvc.perform(post("/items/batch-create")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("groceryListId", list.getId(), "itemNames", List.of("Milk", " ")))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, itemRepository.countByGroceryListId(list.getId()));
+    }
+
+    @Test
+    void testBatchDeleteChecksOwnershipOfEveryId() throws Exception {
+        User other = createUser("otherBatchUser", "otherbatch@example.com");
+        GroceryList otherList = groceryListRepository.save(new GroceryList("Theirs", other));
+        Item mine = itemRepository.save(new Item("Milk", list));
+        Item theirs = itemRepository.save(new Item("Eggs", otherList));
+
+        mockMvc.perform(delete("/items/batch-delete")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(mine.getId(), theirs.getId()))))
+                .andExpect(status().isForbidden());
+        assertEquals(2, itemRepository.count());
+
+        mockMvc.perform(delete("/items/batch-delete")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(mine.getId(), mine.getId()))))
+                .andExpect(status().isOk());
+        assertFalse(itemRepository.existsById(mine.getId()));
+        assertTrue(itemRepository.existsById(theirs.getId()));
+    }
+
+    @Test
+    void testBatchPatchUpdatesItemsAndReturnsVersions() throws Exception {
+        Item milk = itemRepository.save(new Item("Milk", list));
+        Item eggs = itemRepository.save(new Item("Eggs", list));
+
+        String body = objectMapper.writeValueAsString(Map.of("items", List.of(
+                Map.of("id", milk.getId(), "completed", true),
+                Map.of("id", eggs.getId(), "completed", true, "quantity", 12))));
+
+        mockMvc.perform(patch("/items/batch")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(milk.getId()))
+                .andExpect(jsonPath("$[0].version").value(milk.getVersion() + 1));
+
+        Item updatedEggs = itemRepository.findById(eggs.getId()).orElseThrow();
+        assertTrue(updatedEggs.isCompleted());
+        assertEquals(12, updatedEggs.getQuantity());
+        assertEquals("Eggs", updatedEggs.getName());
+        assertTrue(itemRepository.findById(milk.getId()).orElseThrow().isCompleted());
+    }
+
+    @Test
+    void testBatchPatchRejectsForeignItems() throws Exception {
+        User other = createUser("otherPatchUser", "otherpatch@example.com");
+        Item theirs = itemRepository.save(new Item("Eggs", groceryListRepository.save(new GroceryList("Theirs", other))));
+
+        mockMvc.perform(patch("/items/batch")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("items", List.of(Map.of("id", theirs.getId(), "completed", true))))))
+                .andExpect(status().isForbidden());
+
+        assertFalse(itemRepository.findById(theirs.getId()).orElseThrow().isCompleted());
+    }
+}
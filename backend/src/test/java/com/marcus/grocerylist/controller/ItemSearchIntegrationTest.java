@@ -0,0 +1,86 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemSearchIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private User otherUser;
+    private GroceryList weekly;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("searchUser", "search@example.com");
+        otherUser = createUser("otherSearchUser", "othersearch@example.com");
+        weekly = groceryListRepository.save(new GroceryList("Weekly", user));
+        GroceryList party = groceryListRepository.save(new GroceryList("Party", user));
+        GroceryList foreign = groceryListRepository.save(new GroceryList("Theirs", otherUser));
+
+        itemRepository.save(new Item("Oat milk", weekly));
+        itemRepository.save(new Item("Bread", weekly));
+        itemRepository.save(new Item("Milk", party));
+        itemRepository.save(new Item("Milk", foreign));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testSearchCoversAllOfTheCallersListsAndRanksExactMatchesFirst() throws Exception {
+        mockMvc.perform(get("/items/search").param("q", "milk").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Milk"))
+                .andExpect(jsonPath("$[0].listName").value("Party"))
+                .andExpect(jsonPath("$[1].name").value("Oat milk"))
+                .andExpect(jsonPath("$[1].groceryListId").value(weekly.getId()));
+    }
+
+    @Test
+    void testResultsArePaged() throws Exception {
+        String next = mockMvc.perform(get("/items/search").param("q", "milk").param("limit", "1").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Milk"))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+        String cursor = next.substring(next.indexOf("cursor=") + "cursor=".length(), next.indexOf('>'));
+
+        mockMvc.perform(get("/items/search").param("q", "milk").param("limit", "1").param("cursor", cursor)
+                        .header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Oat milk"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void testWildcardsAreMatchedLiterally() throws Exception {
+        mockMvc.perform(get("/items/search").param("q", "%").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void testBlankQueryIsRejected() throws Exception {
+        mockMvc.perform(get("/items/search").param("q", "  ").header("Authorization", authHeader))
+                .andExpect(status().isBadRequest());
+    }
+}
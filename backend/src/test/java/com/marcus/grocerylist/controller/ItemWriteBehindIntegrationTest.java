@@ -0,0 +1,118 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "items.write-behind.enabled=true",
+        "items.write-behind.flush-interval=50ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemWriteBehindIntegrationTest extends IntegrationTestSupport {
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws Exception {
+        String journal = Files.createTempDirectory("write-behind").resolve("items.journal").toString();
+        registry.add("items.write-behind.journal", () -> journal);
+    }
+
+    @Autowired
+    private ItemService itemService;
+
+    private User user;
+    private Item milk;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("writeBehindUser", "writebehind@example.com");
+        GroceryList list = groceryListRepository.save(new GroceryList("Weekly", user));
+        milk = itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testToggleIsAcknowledgedAndWrittenLater() throws Exception {
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "completed", true, "quantity", 2))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(ItemController.PREFERENCE_APPLIED, "respond-async"))
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.quantity").value(2));
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        Item stored = itemRepository.findById(milk.getId()).orElseThrow();
+        while (!stored.isCompleted() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            stored = itemRepository.findById(milk.getId()).orElseThrow();
+        }
+        assertTrue(stored.isCompleted());
+        assertEquals(2, stored.getQuantity());
+        assertEquals(milk.getVersion() + 1, stored.getVersion());
+    }
+
+    @Test
+    void testRenamesAndVersionedUpdatesAreWrittenAtOnce() throws Exception {
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Oat milk", "completed", false, "quantity", 1))))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ItemController.PREFERENCE_APPLIED));
+
+        long version = itemRepository.findById(milk.getId()).orElseThrow().getVersion();
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Oat milk", "completed", true, "quantity", 1, "version", version))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 1));
+    }
+
+    @Test
+    void testQueuedChangeDoesNotUndoALaterVersionedUpdate() throws Exception {
+        long queuedAt = milk.getVersion();
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "completed", false, "quantity", 5, "version", queuedAt))))
+                .andExpect(status().isOk());
+
+        ItemPatchRequest queued = new ItemPatchRequest();
+        queued.setId(milk.getId());
+        queued.setCompleted(true);
+        queued.setQuantity(2);
+        assertEquals(Set.of(), itemService.applyQueuedPatches(List.of(queued), Map.of(milk.getId(), queuedAt)));
+
+        Item stored = itemRepository.findById(milk.getId()).orElseThrow();
+        assertFalse(stored.isCompleted());
+        assertEquals(5, stored.getQuantity());
+        assertEquals(queuedAt + 1, stored.getVersion());
+    }
+}
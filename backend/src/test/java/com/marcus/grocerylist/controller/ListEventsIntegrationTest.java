@@ -0,0 +1,87 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListEventsIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("eventsUser", "events@example.com");
+        list = groceryListRepository.save(new GroceryList("Shared", user));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testSubscriberSeesCreatesAndDeletes() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/items/list/" + list.getId() + "/events")
+                        .header("Authorization", authHeader)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String created = mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "groceryListId", list.getId(), "quantity", 1))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long itemId = objectMapper.readTree(created).get("id").asLong();
+        awaitContent(stream.getResponse(), "\"changed\":[" + itemId + "]");
+
+        Item other = itemRepository.save(new Item("Eggs", list));
+        mockMvc.perform(delete("/items/batch-delete").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(itemId, other.getId()))))
+                .andExpect(status().isOk());
+        awaitContent(stream.getResponse(), "\"deleted\":[" + itemId + "," + other.getId() + "]");
+
+        assertTrue(stream.getResponse().getContentAsString().startsWith("event:change"));
+    }
+
+    @Test
+    void testOnlyTheOwnerCanSubscribe() throws Exception {
+        User other = createUser("otherEventsUser", "otherevents@example.com");
+        GroceryList theirs = groceryListRepository.save(new GroceryList("Theirs", other));
+
+        mockMvc.perform(get("/items/list/" + theirs.getId() + "/events")
+                        .header("Authorization", authHeader)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!response.getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(response.getContentAsString().contains(expected),
+                "Expected " + expected + " in " + response.getContentAsString());
+    }
+}
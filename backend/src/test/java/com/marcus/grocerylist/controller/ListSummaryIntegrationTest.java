@@ -0,0 +1,171 @@
+package com.marcus.grocerylist.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.ListSummaryWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListSummaryIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private ListSummaryWriter listSummaryWriter;
+
+    private User user;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("summaryUser", "summary@example.com");
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testCountsFollowEveryItemWrite() throws Exception {
+        long listId = objectMapper.readTree(mockMvc.perform(post("/lists").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Weekly"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        assertCounts(listId, 0, 0);
+
+        List<Long> ids = new ArrayList<>();
+        for (String name : List.of("Milk", "Eggs")) {
+            ids.add(objectMapper.readTree(mockMvc.perform(post("/items").header("Authorization", authHeader)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("name", name, "groceryListId", listId, "quantity", 1))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString()).get("id").asLong());
+        }
+        mockMvc.perform(post("/items/batch-create").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("groceryListId", listId, "itemNames", List.of("Bread", "Jam", "Tea")))))
+                .andExpect(status().isOk());
+        assertCounts(listId, 5, 0);
+
+        mockMvc.perform(put("/items/" + ids.get(0)).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "completed", true, "quantity", 1))))
+                .andExpect(status().isOk());
+        assertCounts(listId, 5, 1);
+
+        // Milk is already done, so only Eggs moves the count; the rename moves nothing
+        mockMvc.perform(patch("/items/batch").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("items", List.of(
+                                Map.of("id", ids.get(0), "completed", true),
+                                Map.of("id", ids.get(1), "completed", true),
+                                Map.of("id", ids.get(1), "name", "Free range eggs"))))))
+                .andExpect(status().isOk());
+        assertCounts(listId, 5, 2);
+
+        mockMvc.perform(delete("/items/" + ids.get(0)).header("Authorization", authHeader))
+                .andExpect(status().isNoContent());
+        assertCounts(listId, 4, 1);
+
+        mockMvc.perform(delete("/items/batch-delete").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(ids.get(1)))))
+                .andExpect(status().isOk());
+        assertCounts(listId, 3, 0);
+    }
+
+    @Test
+    void testItemWriteChangesTheListsEtag() throws Exception {
+        GroceryList list = groceryListRepository.save(new GroceryList("Weekly", user));
+        listSummaryWriter.createMissing();
+        String etag = mockMvc.perform(get("/lists").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "groceryListId", list.getId(), "quantity", 1))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/lists").header("Authorization", authHeader).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        assertCounts(list.getId(), 1, 0);
+    }
+
+    @Test
+    void testListsWithoutASummaryAreBackfilled() throws Exception {
+        GroceryList list = groceryListRepository.save(new GroceryList("Older", user));
+        Item done = new Item("Milk", list);
+        done.setCompleted(true);
+        itemRepository.save(done);
+        itemRepository.save(new Item("Eggs", list));
+        assertCounts(list.getId(), 0, 0);
+
+        assertEquals(1, listSummaryWriter.createMissing());
+        assertEquals(0, listSummaryWriter.createMissing());
+        assertCounts(list.getId(), 2, 1);
+    }
+
+    @Test
+    void testItemWritesToAListWithoutASummaryCountItsItems() throws Exception {
+        // Created around GroceryListService.saveList, as an instance on older code would
+        GroceryList updated = groceryListRepository.save(new GroceryList("Updated first", user));
+        Item milk = itemRepository.save(new Item("Milk", updated));
+        GroceryList added = groceryListRepository.save(new GroceryList("Added first", user));
+
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Milk", "completed", true, "quantity", 1))))
+                .andExpect(status().isOk());
+        assertCounts(updated.getId(), 1, 1);
+
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Eggs", "groceryListId", added.getId(), "quantity", 1))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/items").header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Bread", "groceryListId", added.getId(), "quantity", 1))))
+                .andExpect(status().isCreated());
+        assertCounts(added.getId(), 2, 0);
+
+        mockMvc.perform(delete("/items/" + milk.getId()).header("Authorization", authHeader))
+                .andExpect(status().isNoContent());
+        assertCounts(updated.getId(), 0, 0);
+        assertEquals(0, listSummaryWriter.createMissing());
+    }
+
+    private void assertCounts(long listId, int items, int completed) throws Exception {
+        JsonNode lists = objectMapper.readTree(mockMvc.perform(get("/lists").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        for (JsonNode list : lists) {
+            if (list.get("id").asLong() == listId) {
+                assertEquals(items, list.get("itemCount").asInt(), "itemCount");
+                assertEquals(completed, list.get("completedCount").asInt(), "completedCount");
+                assertNotNull(list.get("lastModified").asText());
+                return;
+            }
+        }
+        fail("List " + listId + " not returned");
+    }
+}
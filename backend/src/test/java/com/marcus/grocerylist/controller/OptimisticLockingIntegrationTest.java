@@ -0,0 +1,94 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OptimisticLockingIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private GroceryList list;
+    private Item milk;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("lockingUser", "locking@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        milk = itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testSecondWriterWithTheSameVersionGetsConflictAndCurrentItem() throws Exception {
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(itemBody("Oat milk", 2, 0L)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(itemBody("Soy milk", 3, 0L)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.current.name").value("Oat milk"))
+                .andExpect(jsonPath("$.current.version").value(1));
+
+        assertEquals("Oat milk", itemRepository.findById(milk.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void testUpdateWithoutVersionStillOverwrites() throws Exception {
+        Item changed = itemRepository.findById(milk.getId()).orElseThrow();
+        changed.setQuantity(5);
+        itemRepository.save(changed);
+
+        mockMvc.perform(put("/items/" + milk.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(itemBody("Oat milk", 2, null)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(2));
+    }
+
+    @Test
+    void testStaleListVersionGetsConflict() throws Exception {
+        mockMvc.perform(put("/lists/" + list.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Monthly", "version", 0))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/lists/" + list.getId()).header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Yearly", "version", 0))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.current.name").value("Monthly"));
+    }
+
+    private String itemBody(String name, int quantity, Long version) throws Exception {
+        Map<String, Object> body = new HashMap<>();
+        body.put("name", name);
+        body.put("quantity", quantity);
+        body.put("completed", false);
+        body.put("version", version);
+        return objectMapper.writeValueAsString(body);
+    }
+}
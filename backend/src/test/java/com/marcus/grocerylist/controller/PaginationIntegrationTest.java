@@ -0,0 +1,116 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaginationIntegrationTest extends IntegrationTestSupport {
+
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("pagingUser", "paging@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item("Item " + i, list));
+        }
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testItemsKeysetPagination() throws Exception {
+        MvcResult first = mockMvc.perform(get("/items/list/" + list.getId() + "?limit=2")
+                        .header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "5"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Item 1"))
+                .andReturn();
+
+        String next = nextLink(first);
+        mockMvc.perform(get(next).header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Item 3"));
+
+        MvcResult last = mockMvc.perform(get("/items/list/" + list.getId() + "?limit=10")
+                        .header("Authorization", authHeader))
+                .andExpect(jsonPath("$.length()").value(5))
+                .andReturn();
+        assertNull(last.getResponse().getHeader("Link"));
+    }
+
+    @Test
+    void testItemsWithoutLimitReturnsWholeList() throws Exception {
+        mockMvc.perform(get("/items/list/" + list.getId()).header("Authorization", authHeader)
+                        .header("Accept", "application/json, text/plain, */*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+
+    @Test
+    void testInvalidCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/items/list/" + list.getId() + "?cursor=%%%").header("Authorization", authHeader))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testItemsNdjsonStreaming() throws Exception {
+        MvcResult started = mockMvc.perform(get("/items/list/" + list.getId())
+                        .header("Authorization", authHeader)
+                        .header("Accept", "application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Item 1\""));
+    }
+
+    @Test
+    void testListsKeysetPagination() throws Exception {
+        groceryListRepository.save(new GroceryList("Party", user));
+        groceryListRepository.save(new GroceryList("Camping", user));
+
+        MvcResult first = mockMvc.perform(get("/lists?limit=2").header("Authorization", authHeader))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$[0].name").value("Weekly"))
+                .andReturn();
+
+        mockMvc.perform(get(nextLink(first)).header("Authorization", authHeader))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Camping"));
+    }
+
+    private String nextLink(MvcResult result) {
+        String link = result.getResponse().getHeader("Link");
+        assertNotNull(link);
+        assertTrue(link.endsWith("rel=\"next\""));
+        return link.substring(link.indexOf("http://localhost") + "http://localhost".length(), link.indexOf('>'));
+    }
+}
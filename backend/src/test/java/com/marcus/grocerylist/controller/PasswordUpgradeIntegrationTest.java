@@ -0,0 +1,78 @@
+package com.marcus.grocerylist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcus.grocerylist.dto.LoginRequest;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordUpgradeIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testLegacyHashIsRewrittenOnSuccessfulLogin() throws Exception {
+        // Stored the way the old BCryptPasswordEncoder bean did it: no {id} prefix
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+        userRepository.save(new User("legacyUser", legacyHash, "legacy@example.com"));
+
+        login("wrong").andExpect(status().isUnauthorized());
+        assertEquals(legacyHash, userRepository.findByUsername("legacyUser").orElseThrow().getPassword());
+
+        login("secret").andExpect(status().isOk()).andExpect(jsonPath("$.token").isNotEmpty());
+
+        String upgraded = userRepository.findByUsername("legacyUser").orElseThrow().getPassword();
+        assertTrue(upgraded.startsWith("{bcrypt}"));
+        assertTrue(passwordEncoder.matches("secret", upgraded));
+        assertFalse(passwordEncoder.upgradeEncoding(upgraded));
+
+        login("secret").andExpect(status().isOk());
+        assertEquals(upgraded, userRepository.findByUsername("legacyUser").orElseThrow().getPassword());
+    }
+
+    @Test
+    void testRegistrationStoresPrefixedHash() throws Exception {
+        mockMvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"freshUser\",\"password\":\"secret\",\"email\":\"fresh@example.com\"}"))
+                .andExpect(status().isCreated());
+
+        String stored = userRepository.findByUsername("freshUser").orElseThrow().getPassword();
+        assertTrue(stored.startsWith("{bcrypt}$2a$04$"));
+    }
+
+    private org.springframework.test.web.servlet.ResultActions login(String password) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequest("legacy@example.com", password))));
+    }
+}
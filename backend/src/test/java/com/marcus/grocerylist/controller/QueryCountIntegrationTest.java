@@ -0,0 +1,93 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The second-level cache would hide the statements this test is counting, so it is switched off here
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryCountIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private GroceryList list;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = createUser("queryCountUser", "querycount@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testGetItemsByListQueryCountDoesNotGrowWithItems() throws Exception {
+        String url = "/items/list/" + list.getId();
+        // Warm the principal and ownership caches so only the read itself is measured
+        mockMvc.perform(get(url).header("Authorization", authHeader)).andExpect(status().isOk());
+
+        long withOneItem = countStatements(url);
+
+        for (int i = 0; i < 25; i++) {
+            itemRepository.save(new Item("Item " + i, list));
+        }
+        long withManyItems = countStatements(url);
+
+        assertEquals(withOneItem, withManyItems);
+        assertTrue(withManyItems <= 1, "Expected a single SELECT, got " + withManyItems);
+        mockMvc.perform(get(url).header("Authorization", authHeader))
+                .andExpect(jsonPath("$.length()").value(26))
+                .andExpect(jsonPath("$[0].groceryListId").value(list.getId()));
+    }
+
+    @Test
+    void testGetListsQueryCountDoesNotGrowWithLists() throws Exception {
+        mockMvc.perform(get("/lists").header("Authorization", authHeader)).andExpect(status().isOk());
+
+        long withOneList = countStatements("/lists");
+
+        for (int i = 0; i < 10; i++) {
+            GroceryList extra = groceryListRepository.save(new GroceryList("List " + i, user));
+            itemRepository.save(new Item("Bread", extra));
+        }
+        long withManyLists = countStatements("/lists");
+
+        assertEquals(withOneList, withManyLists);
+        mockMvc.perform(get("/lists").header("Authorization", authHeader))
+                .andExpect(jsonPath("$.length()").value(11))
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+    }
+
+    private long countStatements(String url) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url).header("Authorization", authHeader)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
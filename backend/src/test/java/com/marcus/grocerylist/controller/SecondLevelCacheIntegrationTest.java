@@ -0,0 +1,116 @@
+package com.marcus.grocerylist.controller;
+
+import com.marcus.grocerylist.IntegrationTestSupport;
+import com.marcus.grocerylist.model.GroceryList;
+import com.marcus.grocerylist.model.Item;
+import com.marcus.grocerylist.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest extends IntegrationTestSupport {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private GroceryList list;
+    private Item milk;
+    private String authHeader;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = createUser("cacheUser", "cache@example.com");
+        list = groceryListRepository.save(new GroceryList("Weekly", user));
+        milk = itemRepository.save(new Item("Milk", list));
+        authHeader = bearer(user);
+    }
+
+    @Test
+    void testItemsByListIsServedFromQueryCache() throws Exception {
+        getItems().andExpect(jsonPath("$.length()").value(1));
+
+        statistics.clear();
+        getItems().andExpect(jsonPath("$[0].name").value("Milk"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void testJdbcBatchInsertInvalidatesItemsByList() throws Exception {
+        getItems().andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(post("/items/batch-create")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("groceryListId", list.getId(), "itemNames", List.of("Eggs", "Bread")))))
+                .andExpect(status().isOk());
+
+        getItems().andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void testBulkPatchAndDeleteInvalidateCachedItems() throws Exception {
+        Item eggs = itemRepository.save(new Item("Eggs", list));
+        getItems().andExpect(jsonPath("$.length()").value(2));
+        assertTrue(itemRepository.findById(milk.getId()).isPresent());
+
+        mockMvc.perform(patch("/items/batch")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("items", List.of(Map.of("id", milk.getId(), "completed", true))))))
+                .andExpect(status().isOk());
+
+        assertTrue(itemRepository.findById(milk.getId()).orElseThrow().isCompleted());
+        getItems().andExpect(jsonPath("$[0].completed").value(true));
+
+        mockMvc.perform(delete("/items/batch-delete")
+                        .header("Authorization", authHeader)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(eggs.getId()))))
+                .andExpect(status().isOk());
+
+        assertFalse(itemRepository.findById(eggs.getId()).isPresent());
+        getItems().andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testItemLookupByIdHitsEntityCache() {
+        itemRepository.findById(milk.getId());
+
+        statistics.clear();
+        Item cached = itemRepository.findById(milk.getId()).orElseThrow();
+
+        assertEquals("Milk", cached.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    private ResultActions getItems() throws Exception {
+        return mockMvc.perform(get("/items/list/" + list.getId()).header("Authorization", authHeader))
+                .andExpect(status().isOk());
+    }
+}
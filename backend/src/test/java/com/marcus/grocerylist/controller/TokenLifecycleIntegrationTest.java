@@ -0,0 +1,146 @@
+package com.marcus.grocerylist.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcus.grocerylist.dto.LoginRequest;
+import com.marcus.grocerylist.dto.RefreshTokenRequest;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.RevokedTokenRepository;
+import com.marcus.grocerylist.repository.UserRepository;
+import com.marcus.grocerylist.service.PrincipalCache;
+import com.marcus.grocerylist.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Collections;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenLifecycleIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PrincipalCache principalCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        user = userRepository.save(new User("tokenUser", passwordEncoder.encode("secret"), "token@example.com"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        revokedTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        principalCache.invalidate(user.getUsername());
+    }
+
+    @Test
+    void testRefreshIssuesNewPairAndRejectsReplay() throws Exception {
+        JsonNode first = login();
+
+        JsonNode second = refresh(first.get("refreshToken").asText())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().transform(this::json);
+        getLists(second.get("token").asText()).andExpect(status().isOk());
+
+        refresh(first.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+        // A refresh token is not a bearer credential
+        getLists(second.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testLogoutRevokesAccessAndRefreshTokens() throws Exception {
+        JsonNode tokens = login();
+        String accessToken = tokens.get("token").asText();
+        getLists(accessToken).andExpect(status().isOk());
+
+        mockMvc.perform(post("/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest(tokens.get("refreshToken").asText()))))
+                .andExpect(status().isNoContent());
+
+        getLists(accessToken).andExpect(status().isUnauthorized());
+        refresh(tokens.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+
+        // Logging out again is harmless
+        mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testPasswordChangeInvalidatesEarlierTokens() throws Exception {
+        JsonNode tokens = login();
+        getLists(tokens.get("token").asText()).andExpect(status().isOk());
+
+        // iat has second precision, so make sure the change lands in a later second
+        Thread.sleep(1100);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, Collections.emptyList()));
+        User change = new User();
+        change.setPassword("new-secret");
+        userService.updateUser(user.getId(), change);
+        SecurityContextHolder.clearContext();
+
+        getLists(tokens.get("token").asText()).andExpect(status().isUnauthorized());
+        refresh(tokens.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode login() throws Exception {
+        String body = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("token@example.com", "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return json(body);
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))));
+    }
+
+    private ResultActions getLists(String token) throws Exception {
+        return mockMvc.perform(get("/lists").header("Authorization", "Bearer " + token));
+    }
+
+    private JsonNode json(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
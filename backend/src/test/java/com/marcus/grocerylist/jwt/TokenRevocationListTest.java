@@ -0,0 +1,80 @@
+package com.marcus.grocerylist.jwt;
+
+import com.marcus.grocerylist.model.RevokedToken;
+import com.marcus.grocerylist.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private RevokedTokenRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+    }
+
+    @Test
+    void testLoadRebuildsFromTableAndDropsExpiredRows() {
+        Instant later = Instant.now().plus(Duration.ofMinutes(10));
+        when(repository.findByExpiresAtAfter(any(Instant.class)))
+                .thenReturn(List.of(new RevokedToken("stored-1", later), new RevokedToken("stored-2", later)));
+
+        TokenRevocationList list = new TokenRevocationList(repository, 1000, 0.01);
+        list.load();
+
+        assertTrue(list.isRevoked("stored-1"));
+        assertTrue(list.isRevoked("stored-2"));
+        assertFalse(list.isRevoked("never-revoked"));
+        assertFalse(list.isRevoked(null));
+        assertEquals(2, list.size());
+        verify(repository).deleteExpired(any(Instant.class));
+    }
+
+    @Test
+    void testRevokeIsVisibleImmediatelyAndPersisted() {
+        TokenRevocationList list = new TokenRevocationList(repository, 1000, 0.01);
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(5));
+
+        list.revoke("jti-1", expiresAt);
+
+        assertTrue(list.isRevoked("jti-1"));
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(repository).saveAndFlush(saved.capture());
+        assertEquals("jti-1", saved.getValue().getJti());
+        assertEquals(expiresAt, saved.getValue().getExpiresAt());
+        assertTrue(saved.getValue().isNew());
+    }
+
+    @Test
+    void testAlreadyExpiredTokensAreNotStored() {
+        TokenRevocationList list = new TokenRevocationList(repository, 1000, 0.01);
+
+        list.revoke("old", Instant.now().minusSeconds(1));
+
+        assertFalse(list.isRevoked("old"));
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testNoFalseNegativesWellPastExpectedSize() {
+        TokenRevocationList list = new TokenRevocationList(repository, 100, 0.01);
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(5));
+        List<String> ids = java.util.stream.Stream.generate(() -> UUID.randomUUID().toString()).limit(1000).toList();
+
+        ids.forEach(id -> list.revoke(id, expiresAt));
+
+        assertTrue(ids.stream().allMatch(list::isRevoked));
+        assertFalse(list.isRevoked(UUID.randomUUID().toString()));
+    }
+}
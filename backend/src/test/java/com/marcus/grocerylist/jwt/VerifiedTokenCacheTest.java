@@ -0,0 +1,59 @@
+package com.marcus.grocerylist.jwt;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil());
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", "test-secret-key-that-is-long-enough-for-hs256");
+        jwtUtil.init();
+    }
+
+    @Test
+    void testVerifyParsesTokenOnlyOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+        String token = jwtUtil.generateToken("testUser", 1L);
+
+        Claims first = cache.verify(token);
+        Claims second = cache.verify(token);
+
+        assertNotNull(first);
+        assertEquals("testUser", second.getSubject());
+        assertEquals(1L, second.get(JwtUtil.USER_ID_CLAIM, Long.class));
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+        verify(jwtUtil, times(1)).parseClaims(token);
+    }
+
+    @Test
+    void testVerifyRejectsTamperedToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, true, 100);
+        String token = jwtUtil.generateToken("testUser", 1L);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(cache.verify(tampered));
+        assertNull(cache.verify("not-a-jwt"));
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void testVerifyWithCacheDisabledParsesEveryTime() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, false, 100);
+        String token = jwtUtil.generateToken("testUser", 1L);
+
+        assertNotNull(cache.verify(token));
+        assertNotNull(cache.verify(token));
+
+        verify(jwtUtil, times(2)).parseClaims(token);
+    }
+}
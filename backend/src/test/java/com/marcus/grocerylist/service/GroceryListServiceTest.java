@@ -3,6 +3,8 @@ package com.marcus.grocerylist.service;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ListSummaryWriter;
+import com.marcus.grocerylist.repository.TombstoneWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -23,6 +25,18 @@ class GroceryListServiceTest {
     @Mock
     private GroceryListRepository groceryListRepository;
 
+    @Mock
+    private OwnershipService ownershipService;
+
+    @Mock
+    private TombstoneWriter tombstoneWriter;
+
+    @Mock
+    private ListVersionCache listVersionCache;
+
+    @Mock
+    private ListSummaryWriter listSummaryWriter;
+
     @InjectMocks
     private GroceryListService groceryListService;
 
@@ -105,13 +119,18 @@ class GroceryListServiceTest {
         assertEquals(30L, result.getId());
         assertEquals("New List", result.getName());
         verify(groceryListRepository, times(1)).save(newList);
+        verify(listVersionCache, times(1)).bumpOwner(testUser.getId());
+        verify(listSummaryWriter, times(1)).listCreated(30L);
     }
 
     @Test
     void testDeleteList() {
         groceryListService.deleteList(list1.getId());
 
+        verify(tombstoneWriter, times(1)).recordList(list1.getId());
         verify(groceryListRepository, times(1)).deleteById(list1.getId());
+        verify(ownershipService, times(1)).evictList(list1.getId());
+        verify(listVersionCache, times(1)).bumpList(list1.getId());
     }
 
     @Test
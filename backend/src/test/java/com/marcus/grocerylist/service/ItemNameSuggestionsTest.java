@@ -0,0 +1,92 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.ItemNameCount;
+import com.marcus.grocerylist.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemNameSuggestionsTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemNameSuggestions suggestions;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        suggestions = new ItemNameSuggestions(itemRepository, DataSize.ofMegabytes(1), Duration.ofMinutes(5));
+        UserPrincipal principal = new UserPrincipal(7L, "suggestUser", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testMostUsedNamesWithThePrefixComeFirst() {
+        when(itemRepository.countNamesByUserId(7L)).thenReturn(List.of(
+                new ItemNameCount("Milk", 3),
+                new ItemNameCount("Mint", 5),
+                new ItemNameCount("Mango", 1),
+                new ItemNameCount("Bread", 9)));
+
+        assertEquals(List.of("Mint", "Milk", "Mango"), suggestions.suggest(7L, "M", 10));
+        assertEquals(List.of("Mint", "Milk"), suggestions.suggest(7L, "mi", 10));
+        assertEquals(List.of("Bread", "Mint"), suggestions.suggest(7L, "", 2));
+        assertEquals(List.of(), suggestions.suggest(7L, "x", 10));
+        verify(itemRepository, times(1)).countNamesByUserId(7L);
+    }
+
+    @Test
+    void testSpellingsAreMergedUnderTheMostUsedOne() {
+        when(itemRepository.countNamesByUserId(7L)).thenReturn(List.of(
+                new ItemNameCount("oat milk", 1),
+                new ItemNameCount("Oat Milk ", 4)));
+
+        assertEquals(List.of("Oat Milk"), suggestions.suggest(7L, "oat", 10));
+    }
+
+    @Test
+    void testNewNamesAreAddedToALoadedIndex() {
+        when(itemRepository.countNamesByUserId(7L)).thenReturn(List.of(new ItemNameCount("Milk", 1)));
+        suggestions.suggest(7L, "", 10);
+
+        suggestions.recordForCurrentUser(List.of("Mustard", "Mustard", "Milk", "milk"));
+
+        assertEquals(List.of("Milk", "Mustard"), suggestions.suggest(7L, "m", 10));
+        verify(itemRepository, times(1)).countNamesByUserId(7L);
+    }
+
+    @Test
+    void testIndexIsBuiltLazily() {
+        suggestions.recordForCurrentUser(List.of("Milk"));
+
+        verify(itemRepository, never()).countNamesByUserId(anyLong());
+    }
+
+    @Test
+    void testWeightGrowsWithTheNames() {
+        ItemNameSuggestions.NameIndex small = ItemNameSuggestions.NameIndex.of(List.of(new ItemNameCount("milk", 1)));
+        ItemNameSuggestions.NameIndex larger = small.with(List.of("Bread", "Eggs"));
+
+        assertEquals(1, small.size());
+        assertEquals(3, larger.size());
+        assertTrue(larger.weight() > small.weight());
+    }
+}
@@ -1,12 +1,20 @@
 package com.marcus.grocerylist.service;
 
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import com.marcus.grocerylist.dto.ItemUpdateRequest;
+import com.marcus.grocerylist.dto.ItemVersion;
 import com.marcus.grocerylist.exception.ResourceNotFoundException;
 import com.marcus.grocerylist.exception.UnauthorizedAccessException;
+import com.marcus.grocerylist.exception.VersionConflictException;
 import com.marcus.grocerylist.model.GroceryList;
 import com.marcus.grocerylist.model.Item;
 import com.marcus.grocerylist.model.User;
 import com.marcus.grocerylist.repository.GroceryListRepository;
+import com.marcus.grocerylist.repository.ItemBatchWriter;
 import com.marcus.grocerylist.repository.ItemRepository;
+import com.marcus.grocerylist.repository.ItemSearch;
+import com.marcus.grocerylist.repository.ListSummaryWriter;
+import com.marcus.grocerylist.repository.TombstoneWriter;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
@@ -15,7 +23,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.MockedStatic;
+import org.mockito.InOrder;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -26,8 +36,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 class ItemServiceTest {
@@ -38,6 +50,24 @@ class ItemServiceTest {
     @Mock
     private GroceryListRepository groceryListRepository;
 
+    @Mock
+    private ItemBatchWriter itemBatchWriter;
+
+    @Mock
+    private TombstoneWriter tombstoneWriter;
+
+    @Mock
+    private ListVersionCache listVersionCache;
+
+    @Mock
+    private ListSummaryWriter listSummaryWriter;
+
+    @Mock
+    private ItemSearch itemSearch;
+
+    @Mock
+    private ItemNameSuggestions itemNameSuggestions;
+
     @InjectMocks
     private ItemService itemService;
 
@@ -48,6 +78,9 @@ class ItemServiceTest {
 
     private MockedStatic<SecurityContextHolder> mockedSecurityContextHolder;
 
+    private static final Long USER_ID = 7L;
+    private final UserPrincipal principal = new UserPrincipal(USER_ID, "testUser", null, AuthorityUtils.createAuthorityList("USER"));
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -134,10 +167,58 @@ class ItemServiceTest {
         assertEquals("New Item", result.getName());
         assertFalse(result.isCompleted());
         assertEquals(1, result.getQuantity());
+        verify(listVersionCache, times(1)).bumpList(1L);
+        verify(listSummaryWriter, times(1)).itemsAdded(1L, 1, 0);
 
         verify(itemRepository, times(1)).save(any(Item.class));
     }
 
+    @Test
+    void testUpdateItemWithStaleVersionReturnsCurrentState() {
+        GroceryList groceryList = new GroceryList();
+        groceryList.setId(1L);
+        Item stored = new Item("Milk", groceryList);
+        stored.setId(5L);
+        stored.setVersion(3);
+        when(itemRepository.findById(5L)).thenReturn(Optional.of(stored));
+
+        ItemUpdateRequest changes = new ItemUpdateRequest();
+        changes.setName("Oat milk");
+        changes.setVersion(2L);
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class, () -> itemService.updateItem(5L, changes));
+
+        assertSame(stored, conflict.getCurrent());
+        assertEquals("Milk", stored.getName());
+        verify(itemRepository, never()).save(any(Item.class));
+    }
+
+    @Test
+    void testUpdateItemLocksTheRowBeforeCheckingTheVersion() {
+        GroceryList groceryList = new GroceryList();
+        groceryList.setId(1L);
+        Item stored = new Item("Milk", groceryList);
+        stored.setId(5L);
+        stored.setVersion(3);
+        when(itemRepository.findById(5L)).thenReturn(Optional.of(stored));
+        when(itemRepository.save(stored)).thenReturn(stored);
+
+        ItemUpdateRequest changes = new ItemUpdateRequest();
+        changes.setName("Oat milk");
+        changes.setCompleted(true);
+        changes.setVersion(3L);
+
+        Item result = itemService.updateItem(5L, changes);
+
+        assertEquals("Oat milk", result.getName());
+        assertTrue(result.isCompleted());
+        InOrder inOrder = inOrder(listSummaryWriter, itemRepository);
+        inOrder.verify(listSummaryWriter).itemsUpdated(List.of(5L), true);
+        inOrder.verify(itemRepository).findById(5L);
+        inOrder.verify(itemRepository).save(stored);
+        verify(listVersionCache).bumpList(1L);
+    }
+
     @Test
     void testSaveItemWithNullName() {
         GroceryList mockGroceryList = new GroceryList();
@@ -206,6 +287,7 @@ class ItemServiceTest {
 
         itemService.deleteItem(itemId);
 
+        verify(tombstoneWriter, times(1)).recordItems(List.of(itemId));
         verify(itemRepository, times(1)).deleteById(itemId);
     }
 
@@ -277,69 +359,43 @@ class ItemServiceTest {
 
     @Test
     void testDeleteItemsInBatchSuccess() {
-        String currentUser = "testUser";
-        User user = new User("testUser", "password", "test@example.com");
-        user.setId(1L);
-
-        GroceryList groceryList = new GroceryList();
-        groceryList.setId(1L);
-        groceryList.setUser(user);
-
         List<Long> itemIds = Arrays.asList(1L, 2L);
-        List<Item> itemsToDelete = Arrays.asList(
-                new Item("Item A", groceryList, false, 1),
-                new Item("Item B", groceryList, false, 1)
-        );
-        itemsToDelete.get(0).setId(1L);
-        itemsToDelete.get(1).setId(2L);
 
-        when(authentication.getName()).thenReturn(currentUser);
-        when(itemRepository.findAllByIdIn(itemIds)).thenReturn(itemsToDelete);
-        doNothing().when(itemRepository).deleteAllByIdInBatch(itemIds);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(itemIds, USER_ID)).thenReturn(2L);
 
         itemService.deleteItemsInBatch(itemIds);
 
-        verify(itemRepository, times(1)).findAllByIdIn(itemIds);
+        verify(itemRepository, times(1)).countOwnedByIdIn(itemIds, USER_ID);
+        verify(itemRepository, never()).countByIdIn(anyList());
+        verify(itemRepository, never()).findAllById(anyList());
+        verify(tombstoneWriter, times(1)).recordItems(itemIds);
         verify(itemRepository, times(1)).deleteAllByIdInBatch(itemIds);
+        verify(listVersionCache, times(1)).bumpCurrentUser();
     }
 
     @Test
     void testDeleteItemsInBatchResourceNotFound() {
         List<Long> itemIds = Arrays.asList(1L, 2L);
-        Item partialFoundItem = new Item();
-        partialFoundItem.setId(1L);
-        partialFoundItem.setName("Partial Item");
-        GroceryList gl = new GroceryList(); gl.setId(1L); User u = new User(); u.setUsername("test"); gl.setUser(u);
-        partialFoundItem.setGroceryList(gl);
-
-        List<Item> foundItems = Arrays.asList(partialFoundItem);
 
-        when(itemRepository.findAllByIdIn(itemIds)).thenReturn(foundItems);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(itemIds, USER_ID)).thenReturn(1L);
+        when(itemRepository.countByIdIn(itemIds)).thenReturn(1L);
 
         assertThrows(ResourceNotFoundException.class, () -> itemService.deleteItemsInBatch(itemIds));
 
+        verify(tombstoneWriter, never()).recordItems(anyList());
         verify(itemRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(listVersionCache, never()).bumpCurrentUser();
     }
 
     @Test
     void testDeleteItemsInBatchUnauthorizedAccess() {
-        String currentUser = "testUser";
-        String anotherUser = "anotherUser";
-        User userOwned = new User(anotherUser, "pass", "another@example.com");
-        userOwned.setId(2L);
-
-        GroceryList groceryList = new GroceryList();
-        groceryList.setId(1L);
-        groceryList.setUser(userOwned);
-
         List<Long> itemIds = Arrays.asList(1L);
-        List<Item> itemsToDelete = Arrays.asList(
-                new Item("Item C", groceryList, false, 1)
-        );
-        itemsToDelete.get(0).setId(1L);
 
-        when(authentication.getName()).thenReturn(currentUser);
-        when(itemRepository.findAllByIdIn(itemIds)).thenReturn(itemsToDelete);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(itemIds, USER_ID)).thenReturn(0L);
+        when(itemRepository.countByIdIn(itemIds)).thenReturn(1L);
 
         assertThrows(UnauthorizedAccessException.class, () -> itemService.deleteItemsInBatch(itemIds));
 
@@ -349,43 +405,88 @@ class ItemServiceTest {
     @Test
     void testDeleteItemsInBatchWithEmptyList() {
         List<Long> emptyItemIds = new ArrayList<>();
-        String currentUser = "testUser";
-        when(authentication.getName()).thenReturn(currentUser);
+        when(authentication.getPrincipal()).thenReturn(principal);
 
         itemService.deleteItemsInBatch(emptyItemIds);
 
-        verify(itemRepository, never()).findAllByIdIn(anyList());
+        verify(itemRepository, never()).countOwnedByIdIn(anyList(), anyLong());
         verify(itemRepository, never()).deleteAllByIdInBatch(anyList());
     }
 
     @Test
     void testDeleteItemsInBatchWithDuplicateIds() {
-        String currentUser = "testUser";
-        User user = new User("testUser", "password", "test@example.com");
-        user.setId(1L);
+        List<Long> itemIdsWithDuplicates = Arrays.asList(1L, 2L, 1L);
+        List<Long> uniqueItemIds = Arrays.asList(1L, 2L);
 
-        GroceryList groceryList = new GroceryList();
-        groceryList.setId(1L);
-        groceryList.setUser(user);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(eq(uniqueItemIds), eq(USER_ID))).thenReturn(2L);
 
-        List<Long> itemIdsWithDuplicates = Arrays.asList(1L, 2L, 1L);
-        List<Long> uniqueItemIdsForMock = Arrays.asList(1L, 2L);
+        assertDoesNotThrow(() -> itemService.deleteItemsInBatch(itemIdsWithDuplicates));
 
-        List<Item> itemsFoundByRepository = Arrays.asList(
-                new Item("Item A", groceryList, false, 1),
-                new Item("Item B", groceryList, false, 1)
-        );
-        itemsFoundByRepository.get(0).setId(1L);
-        itemsFoundByRepository.get(1).setId(2L);
+        verify(itemRepository, times(1)).deleteAllByIdInBatch(eq(uniqueItemIds));
+    }
+
+    @Test
+    void testDeleteItemsInBatchChunksLargeIdLists() {
+        List<Long> itemIds = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            itemIds.add(id);
+        }
 
-        when(authentication.getName()).thenReturn(currentUser);
-        when(itemRepository.findAllByIdIn(eq(uniqueItemIdsForMock))).thenReturn(itemsFoundByRepository);
-        doNothing().when(itemRepository).deleteAllByIdInBatch(eq(uniqueItemIdsForMock));
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(anyList(), eq(USER_ID)))
+                .thenAnswer(invocation -> (long) invocation.<List<Long>>getArgument(0).size());
 
-        assertDoesNotThrow(() -> itemService.deleteItemsInBatch(itemIdsWithDuplicates));
+        itemService.deleteItemsInBatch(itemIds);
+
+        verify(itemRepository, times(3)).countOwnedByIdIn(anyList(), eq(USER_ID));
+        verify(itemRepository, times(3)).deleteAllByIdInBatch(anyList());
+        verify(itemRepository).deleteAllByIdInBatch(itemIds.subList(2000, 2500));
+    }
 
-        verify(itemRepository, times(1)).findAllByIdIn(eq(uniqueItemIdsForMock));
-        verify(itemRepository, times(1)).deleteAllByIdInBatch(eq(uniqueItemIdsForMock));
+    @Test
+    void testPatchItemsInBatchGroupsIdenticalChanges() {
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(List.of(1L, 2L, 3L), USER_ID)).thenReturn(3L);
+        when(itemRepository.findVersionsByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new ItemVersion(1L, 1L), new ItemVersion(2L, 1L), new ItemVersion(3L, 4L)));
+
+        List<ItemVersion> versions = itemService.patchItemsInBatch(List.of(
+                patch(1L, true, null), patch(2L, true, null), patch(3L, true, 5)));
+
+        assertEquals(3, versions.size());
+        verify(itemBatchWriter, times(1)).updateAll(List.of(1L, 2L), true, null, null);
+        verify(itemBatchWriter, times(1)).updateAll(List.of(3L), true, 5, null);
+    }
+
+    @Test
+    void testPatchItemsInBatchMergesPatchesForSameItem() {
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(List.of(1L), USER_ID)).thenReturn(1L);
+
+        itemService.patchItemsInBatch(List.of(patch(1L, true, 2), patch(1L, false, null)));
+
+        verify(itemBatchWriter, times(1)).updateAll(List.of(1L), false, 2, null);
+    }
+
+    @Test
+    void testPatchItemsInBatchUnauthorizedAccess() {
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(itemRepository.countOwnedByIdIn(List.of(1L, 2L), USER_ID)).thenReturn(1L);
+        when(itemRepository.countByIdIn(List.of(1L, 2L))).thenReturn(2L);
+
+        assertThrows(UnauthorizedAccessException.class,
+                () -> itemService.patchItemsInBatch(List.of(patch(1L, true, null), patch(2L, true, null))));
+
+        verify(itemBatchWriter, never()).updateAll(anyList(), any(), any(), any());
+    }
+
+    private ItemPatchRequest patch(Long id, Boolean completed, Integer quantity) {
+        ItemPatchRequest patch = new ItemPatchRequest();
+        patch.setId(id);
+        patch.setCompleted(completed);
+        patch.setQuantity(quantity);
+        return patch;
     }
 
     @Test
@@ -394,15 +495,12 @@ class ItemServiceTest {
         mockGroceryList.setId(1L);
 
         List<String> itemNames = Arrays.asList("Apple", "Banana", "Orange");
-        when(itemRepository.saveAll(anyList())).thenReturn(Arrays.asList(
-                new Item("Apple", mockGroceryList, false, 1),
-                new Item("Banana", mockGroceryList, false, 1),
-                new Item("Orange", mockGroceryList, false, 1)
-        ));
+        when(itemBatchWriter.insertAll(1L, itemNames, 0)).thenReturn(3);
 
         itemService.createItemsInBatch(mockGroceryList, itemNames);
 
-        verify(itemRepository, times(1)).saveAll(anyList());
+        verify(itemBatchWriter, times(1)).insertAll(1L, itemNames, 0);
+        verify(itemRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -414,7 +512,7 @@ class ItemServiceTest {
 
         itemService.createItemsInBatch(mockGroceryList, emptyItemNames);
 
-        verify(itemRepository, never()).saveAll(anyList());
+        verify(itemBatchWriter, never()).insertAll(anyLong(), anyList(), anyInt());
     }
 
     @Test
@@ -424,11 +522,9 @@ class ItemServiceTest {
 
         List<String> itemNames = Arrays.asList("Item1", null, "Item3");
 
-        when(itemRepository.saveAll(anyList())).thenThrow(new IllegalArgumentException("Item name cannot be null or empty in batch"));
-
         assertThrows(IllegalArgumentException.class, () -> itemService.createItemsInBatch(mockGroceryList, itemNames));
 
-        verify(itemRepository, times(1)).saveAll(anyList());
+        verify(itemBatchWriter, never()).insertAll(anyLong(), anyList(), anyInt());
     }
 
     @Test
@@ -438,10 +534,8 @@ class ItemServiceTest {
 
         List<String> itemNames = Arrays.asList("Item1", "", "Item3");
 
-        when(itemRepository.saveAll(anyList())).thenThrow(new IllegalArgumentException("Item name cannot be null or empty in batch"));
-
         assertThrows(IllegalArgumentException.class, () -> itemService.createItemsInBatch(mockGroceryList, itemNames));
 
-        verify(itemRepository, times(1)).saveAll(anyList());
+        verify(itemBatchWriter, never()).insertAll(anyLong(), anyList(), anyInt());
     }
-}
\ No newline at end of file
+}
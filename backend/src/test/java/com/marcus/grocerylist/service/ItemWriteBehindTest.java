@@ -0,0 +1,166 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.ItemPatchRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ItemWriteBehindTest {
+
+    @Mock
+    private ItemService itemService;
+    @Mock
+    private ListVersionCache listVersionCache;
+    @Mock
+    private ListEventBus listEventBus;
+
+    @TempDir
+    Path dir;
+
+    private Path journal;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        journal = dir.resolve("items.journal");
+        when(itemService.applyQueuedPatches(anyList(), anyMap())).thenAnswer(ItemWriteBehindTest::writeAll);
+    }
+
+    // Every change still matches the stored version
+    private static Set<Long> writeAll(InvocationOnMock invocation) {
+        Map<Long, Long> versions = invocation.getArgument(1);
+        return new HashSet<>(versions.keySet());
+    }
+
+    // Flushes are driven by the test; the scheduled one would only run after an hour
+    private ItemWriteBehind start() {
+        return new ItemWriteBehind(itemService, listVersionCache, listEventBus, true, journal, Duration.ofHours(1), 100, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ItemPatchRequest> flushed() {
+        ArgumentCaptor<List<ItemPatchRequest>> patches = ArgumentCaptor.forClass(List.class);
+        verify(itemService).applyQueuedPatches(patches.capture(), anyMap());
+        return patches.getValue();
+    }
+
+    @Test
+    void testRepeatedChangesToAnItemAreWrittenOnce() throws Exception {
+        ItemWriteBehind writeBehind = start();
+        writeBehind.enqueue(1L, 10L, 100L, 0L, true, 1);
+        writeBehind.enqueue(2L, 10L, 100L, 0L, true, 3);
+        writeBehind.enqueue(1L, 10L, 100L, 0L, false, 2);
+
+        writeBehind.flush();
+
+        List<ItemPatchRequest> patches = flushed();
+        assertEquals(2, patches.size());
+        assertEquals(1L, patches.get(0).getId());
+        assertFalse(patches.get(0).getCompleted());
+        assertEquals(2, patches.get(0).getQuantity());
+        assertNull(patches.get(0).getName());
+        verify(listVersionCache).bumpList(10L);
+        verify(listVersionCache).bumpOwner(100L);
+        writeBehind.destroy();
+    }
+
+    @Test
+    void testQueuedChangesAreReplayedAfterARestart() throws Exception {
+        ItemWriteBehind crashed = start();
+        crashed.enqueue(1L, 10L, 100L, 0L, true, 1);
+        crashed.enqueue(1L, 10L, 100L, 0L, true, 4);
+        verify(itemService, never()).applyQueuedPatches(anyList(), anyMap());
+
+        ItemWriteBehind restarted = start();
+        restarted.flush();
+
+        List<ItemPatchRequest> patches = flushed();
+        assertEquals(1, patches.size());
+        assertEquals(4, patches.get(0).getQuantity());
+        assertEquals(0, Files.size(journal));
+        restarted.destroy();
+    }
+
+    @Test
+    void testFailedFlushKeepsTheChangesForTheNextOne() throws Exception {
+        doThrow(new IllegalStateException("Database is down")).doAnswer(ItemWriteBehindTest::writeAll)
+                .when(itemService).applyQueuedPatches(anyList(), anyMap());
+        ItemWriteBehind writeBehind = start();
+        writeBehind.enqueue(1L, 10L, 100L, 0L, true, 1);
+
+        assertThrows(IllegalStateException.class, writeBehind::flush);
+        assertTrue(Files.size(journal) > 0);
+        writeBehind.enqueue(2L, 10L, 100L, 0L, false, 1);
+        writeBehind.flush();
+
+        verify(itemService, times(2)).applyQueuedPatches(anyList(), anyMap());
+        assertEquals(0, Files.size(journal));
+        verify(listVersionCache, times(1)).bumpList(10L);
+        writeBehind.destroy();
+    }
+
+    @Test
+    void testChangesToItemsWrittenSinceAreDropped() throws Exception {
+        when(itemService.applyQueuedPatches(anyList(), anyMap())).thenReturn(Set.of());
+        ItemWriteBehind writeBehind = start();
+        writeBehind.enqueue(1L, 10L, 100L, 3L, true, 1);
+
+        writeBehind.flush();
+
+        verify(itemService).applyQueuedPatches(anyList(), eq(Map.of(1L, 3L)));
+        verify(listVersionCache, never()).bumpList(anyLong());
+        verify(listEventBus, never()).publish(any());
+        writeBehind.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangesQueuedDuringAFlushFollowItsVersion() throws Exception {
+        ItemWriteBehind writeBehind = start();
+        writeBehind.enqueue(1L, 10L, 100L, 3L, true, 1);
+        // A request reads the item before the flush commits, so it queues against the old version too
+        when(itemService.applyQueuedPatches(anyList(), anyMap())).thenAnswer(invocation -> {
+            writeBehind.enqueue(1L, 10L, 100L, 3L, false, 1);
+            return writeAll(invocation);
+        }).thenAnswer(ItemWriteBehindTest::writeAll);
+
+        writeBehind.flush();
+        writeBehind.flush();
+
+        ArgumentCaptor<Map<Long, Long>> versions = ArgumentCaptor.forClass(Map.class);
+        verify(itemService, times(2)).applyQueuedPatches(anyList(), versions.capture());
+        assertEquals(Map.of(1L, 3L), versions.getAllValues().get(0));
+        assertEquals(Map.of(1L, 4L), versions.getAllValues().get(1));
+        writeBehind.destroy();
+    }
+
+    @Test
+    void testDisabledWriteBehindTouchesNoFiles() throws Exception {
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemService, listVersionCache, listEventBus, false, journal,
+                Duration.ofHours(1), 100, false);
+
+        assertFalse(writeBehind.isEnabled());
+        assertFalse(Files.exists(journal));
+        writeBehind.destroy();
+    }
+}
@@ -0,0 +1,211 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.ListChangeEvent;
+import com.marcus.grocerylist.exception.SubscriptionLimitException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListEventBusTest {
+    private static final Long USER = 7L;
+
+    private ListEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new ListEventBus(2, 5, 100, 10, Duration.ofMinutes(1), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.destroy();
+    }
+
+    @Test
+    void testEventsOnlyReachSubscribersOfThatList() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        bus.register(1L, USER, first);
+        bus.register(2L, USER, other);
+
+        bus.publish(new ListChangeEvent(1L, List.of(10L), List.of(), false));
+
+        ListChangeEvent received = first.next();
+        assertEquals(List.of(10L), received.getChanged());
+        assertFalse(received.isReload());
+        assertNull(other.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testChangesArriveWhileASendBlocksAreMergedIntoOneEvent() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockNextSend();
+        bus.register(1L, USER, slow);
+
+        bus.publish(new ListChangeEvent(1L, List.of(10L), List.of(), false));
+        assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+        bus.publish(new ListChangeEvent(1L, List.of(11L, 12L), List.of(), false));
+        bus.publish(new ListChangeEvent(1L, List.of(), List.of(12L), false));
+        bus.publish(new ListChangeEvent(1L, List.of(13L), List.of(), false));
+        slow.release.countDown();
+
+        assertEquals(List.of(10L), slow.next().getChanged());
+        ListChangeEvent merged = slow.next();
+        assertEquals(List.of(11L, 13L), merged.getChanged());
+        assertEquals(List.of(12L), merged.getDeleted());
+        assertNull(slow.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testSubscriberTooFarBehindGetsASingleReload() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockNextSend();
+        bus.register(1L, USER, slow);
+
+        bus.publish(new ListChangeEvent(1L, List.of(1L), List.of(), false));
+        assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+        for (long id = 2; id < 20; id++) {
+            bus.publish(new ListChangeEvent(1L, List.of(id), List.of(), false));
+        }
+        slow.release.countDown();
+
+        slow.next();
+        ListChangeEvent reload = slow.next();
+        assertTrue(reload.isReload());
+        assertTrue(reload.getChanged().isEmpty());
+        assertNull(slow.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testSubscriberIsDroppedWhenSendFails() throws Exception {
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failSends = true;
+        bus.register(1L, USER, gone);
+        assertTrue(bus.hasSubscribers());
+
+        bus.publish(new ListChangeEvent(1L, List.of(10L), List.of(), false));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.hasSubscribers() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(bus.hasSubscribers());
+    }
+
+    @Test
+    void testCapacity() {
+        ListEventBus small = new ListEventBus(1, 5, 2, 1, Duration.ofMinutes(1), Duration.ofSeconds(10));
+        try {
+            small.register(1L, USER, new RecordingEmitter());
+            SubscriptionLimitException perUser = assertThrows(SubscriptionLimitException.class,
+                    () -> small.register(2L, USER, new RecordingEmitter()));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, perUser.getStatus());
+
+            small.register(1L, 8L, new RecordingEmitter());
+            SubscriptionLimitException global = assertThrows(SubscriptionLimitException.class,
+                    () -> small.register(1L, 9L, new RecordingEmitter()));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, global.getStatus());
+        } finally {
+            small.destroy();
+        }
+    }
+
+    @Test
+    void testSlotsAreGivenBackWhenASubscriberLeaves() throws Exception {
+        ListEventBus small = new ListEventBus(1, 5, 1, 1, Duration.ofMinutes(1), Duration.ofSeconds(10));
+        try {
+            RecordingEmitter gone = new RecordingEmitter();
+            gone.failSends = true;
+            small.register(1L, USER, gone);
+            small.publish(new ListChangeEvent(1L, List.of(10L), List.of(), false));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (small.hasSubscribers() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertDoesNotThrow(() -> small.register(1L, USER, new RecordingEmitter()));
+        } finally {
+            small.destroy();
+        }
+    }
+
+    @Test
+    void testStalledSubscriberIsDroppedWithoutHoldingUpOthers() throws Exception {
+        ListEventBus single = new ListEventBus(1, 5, 100, 10, Duration.ofMinutes(1), Duration.ofMillis(50));
+        try {
+            RecordingEmitter stalled = new RecordingEmitter();
+            stalled.blockNextSend();
+            RecordingEmitter other = new RecordingEmitter();
+            single.register(1L, USER, stalled);
+            single.register(2L, USER, other);
+
+            single.publish(new ListChangeEvent(1L, List.of(10L), List.of(), false));
+            assertTrue(stalled.sendStarted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            single.dropStalledSubscribers();
+
+            // The only dispatcher thread is still stuck in the stalled send
+            single.publish(new ListChangeEvent(2L, List.of(20L), List.of(), false));
+            assertNotNull(other.events.poll(2, TimeUnit.SECONDS), "Other subscribers wait for the stalled send");
+
+            single.publish(new ListChangeEvent(1L, List.of(11L), List.of(), false));
+            stalled.release.countDown();
+            assertEquals(List.of(10L), stalled.next().getChanged());
+            assertNull(stalled.events.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            single.destroy();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<ListChangeEvent> events = new LinkedBlockingQueue<>();
+        final CountDownLatch sendStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blockNext;
+        volatile boolean failSends;
+
+        void blockNextSend() {
+            blockNext = true;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            if (blockNext) {
+                blockNext = false;
+                sendStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof ListChangeEvent event) {
+                    events.add(event);
+                }
+            }
+        }
+
+        ListChangeEvent next() throws InterruptedException {
+            ListChangeEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "Expected an event");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.exception.HashingOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void testOffloadedEncoderHashesOnTheExecutor() {
+        executor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(5), Duration.ofSeconds(2));
+        PasswordEncoder encoder = executor.offload(new BCryptPasswordEncoder(4));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals("password-hashing-1", executor.call(() -> Thread.currentThread().getName()));
+    }
+
+    @Test
+    void testShedsWorkWhenQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(3));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor.bindTo(registry);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> executor.call(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.call(() -> "queued"));
+        while (registry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        HashingOverloadedException ex = assertThrows(HashingOverloadedException.class, () -> executor.call(() -> "shed"));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1, registry.get("security.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testShedsWorkThatWaitsLongerThanMaxWait() throws Exception {
+        executor = new PasswordHashingExecutor(1, 10, Duration.ofMillis(100), Duration.ofSeconds(2));
+        CountDownLatch started = new CountDownLatch(1);
+        // The blocker's own caller gives up after max-wait too, so it has to ignore the cancellation
+        CompletableFuture.runAsync(() -> executor.call(() -> {
+            started.countDown();
+            while (true) {
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // keep the worker busy
+                }
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(HashingOverloadedException.class, () -> executor.call(() -> "too late"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.marcus.grocerylist.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final PrincipalCache principalCache = new PrincipalCache(Duration.ofMinutes(5), 100);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testInvalidateInsideATransactionWaitsForTheCommit() {
+        UserPrincipal before = principal(Instant.EPOCH);
+        principalCache.get("alice", name -> before);
+
+        TransactionSynchronizationManager.initSynchronization();
+        principalCache.invalidate("alice");
+        // A request racing the commit still sees the cached entry instead of reloading the old row
+        assertSame(before, principalCache.get("alice", name -> principal(Instant.EPOCH)));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        UserPrincipal after = principal(Instant.now());
+        assertSame(after, principalCache.get("alice", name -> after));
+    }
+
+    @Test
+    void testInvalidateOutsideATransactionIsImmediate() {
+        principalCache.get("alice", name -> principal(Instant.EPOCH));
+
+        principalCache.invalidate("alice");
+
+        UserPrincipal reloaded = principal(Instant.now());
+        assertSame(reloaded, principalCache.get("alice", name -> reloaded));
+    }
+
+    private static UserPrincipal principal(Instant credentialsChangedAt) {
+        return new UserPrincipal(1L, "alice", null, AuthorityUtils.createAuthorityList("USER"), credentialsChangedAt);
+    }
+}
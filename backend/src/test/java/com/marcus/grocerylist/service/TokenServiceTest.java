@@ -0,0 +1,117 @@
+package com.marcus.grocerylist.service;
+
+import com.marcus.grocerylist.dto.AuthResponse;
+import com.marcus.grocerylist.jwt.JwtUtil;
+import com.marcus.grocerylist.jwt.TokenRevocationList;
+import com.marcus.grocerylist.model.User;
+import com.marcus.grocerylist.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenServiceTest {
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JwtUtil jwtUtil;
+    private TokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", "test-secret-key-that-is-long-enough-for-hs256");
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        tokenService = new TokenService(jwtUtil, tokenRevocationList, userRepository);
+
+        user = new User("testUser", "encodedPass", "test@example.com");
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void testIssueReturnsAccessAndRefreshTokens() {
+        AuthResponse response = tokenService.issue("testUser", 1L);
+
+        assertEquals(JwtUtil.ACCESS_TOKEN, jwtUtil.parseClaims(response.getToken()).get(JwtUtil.TOKEN_TYPE_CLAIM));
+        assertEquals(JwtUtil.REFRESH_TOKEN, jwtUtil.parseClaims(response.getRefreshToken()).get(JwtUtil.TOKEN_TYPE_CLAIM));
+        assertEquals(900, response.getExpiresIn());
+    }
+
+    @Test
+    void testRefreshRotatesAndRevokesTheUsedToken() {
+        String refreshToken = jwtUtil.generateRefreshToken("testUser", 1L);
+        Claims used = jwtUtil.parseClaims(refreshToken);
+
+        AuthResponse response = tokenService.refresh(refreshToken);
+
+        assertNotEquals(refreshToken, response.getRefreshToken());
+        assertEquals("testUser", jwtUtil.extractUsername(response.getToken()));
+        verify(tokenRevocationList).revoke(used.getId(), used.getExpiration().toInstant());
+    }
+
+    @Test
+    void testRefreshRejectsAccessTokens() {
+        String accessToken = jwtUtil.generateToken("testUser", 1L);
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh(accessToken));
+        verify(tokenRevocationList, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    void testRefreshRejectsRevokedToken() {
+        String refreshToken = jwtUtil.generateRefreshToken("testUser", 1L);
+        when(tokenRevocationList.isRevokedAnywhere(jwtUtil.parseClaims(refreshToken).getId())).thenReturn(true);
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh(refreshToken));
+    }
+
+    @Test
+    void testRefreshRejectsConcurrentReuse() {
+        String refreshToken = jwtUtil.generateRefreshToken("testUser", 1L);
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(tokenRevocationList).revoke(anyString(), any());
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh(refreshToken));
+    }
+
+    @Test
+    void testRefreshRejectsTokenIssuedBeforePasswordChange() {
+        String refreshToken = jwtUtil.generateRefreshToken("testUser", 1L);
+        user.setCredentialsChangedAt(Instant.now().plusSeconds(2));
+
+        assertThrows(BadCredentialsException.class, () -> tokenService.refresh(refreshToken));
+    }
+
+    @Test
+    void testLogoutRevokesBothTokensAndIgnoresGarbage() {
+        String accessToken = jwtUtil.generateToken("testUser", 1L);
+        String refreshToken = jwtUtil.generateRefreshToken("testUser", 1L);
+
+        tokenService.logout(accessToken, refreshToken);
+        tokenService.logout("not-a-token", null);
+
+        verify(tokenRevocationList).revoke(eq(jwtUtil.parseClaims(accessToken).getId()), any());
+        verify(tokenRevocationList).revoke(eq(jwtUtil.parseClaims(refreshToken).getId()), any());
+        verifyNoMoreInteractions(userRepository);
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +33,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -215,6 +219,19 @@ class UserServiceTest {
 
         verify(userRepository, times(1)).findById(userId);
         verify(userRepository, times(1)).deleteById(userId);
+        verify(principalCache, times(1)).invalidate("currentUser");
+    }
+
+    @Test
+    void testGetCurrentUserReferenceFromPrincipal() {
+        UserPrincipal principal = new UserPrincipal(7L, "currentUser", Collections.emptyList());
+        when(authentication.getPrincipal()).thenReturn(principal);
+
+        User result = userService.getCurrentUserReference();
+
+        assertEquals(7L, result.getId());
+        assertEquals("currentUser", result.getUsername());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -278,6 +295,7 @@ class UserServiceTest {
         verify(userRepository, times(1)).existsByEmail("updated@example.com");
         verify(passwordEncoder, times(1)).encode("newRawPass");
         verify(userRepository, times(1)).save(any(User.class));
+        verify(principalCache, times(1)).invalidate("existingUser");
     }
 
     @Test
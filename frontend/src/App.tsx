@@ -3,7 +3,8 @@ import { BrowserRouter as Router, Routes, Route, Navigate } from 'react-router-d
 import AuthPage from './pages/AuthPage';
 import HomePage from './pages/HomePage';
 import './App.css'
-import { getToken, removeToken } from './utils/auth';
+import { getToken, getRefreshToken, removeToken } from './utils/auth';
+import api from './utils/api';
 
 function App() {
   const [isAuthenticated, setIsAuthenticated] = useState<boolean>(false);
@@ -19,6 +20,8 @@ function App() {
   }
 
   const handleLogout = () =>{
+    // Revokes the refresh token server-side; signing out locally must not wait on it
+    api.post('/auth/logout', {refreshToken: getRefreshToken()}).catch(() => {});
     removeToken();
     setIsAuthenticated(false)
   }
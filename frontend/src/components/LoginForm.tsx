@@ -1,6 +1,6 @@
 import React, { useState } from 'react';
 import './Form.css';
-import { setToken } from '../utils/auth';
+import { setToken, setRefreshToken } from '../utils/auth';
 import api from '../utils/api';
 
   interface LoginFormProps{
@@ -27,6 +27,7 @@ const LoginForm: React.FC<LoginFormProps> = ({onSwitchToRegister, onLoginSuccess
       console.log('Login successful:' , data);
       alert('Login successful!');
       setToken(data.token);
+      setRefreshToken(data.refreshToken);
       console.log('JWT Token saved:', data.token);
       onLoginSuccess(data.token);
     }catch(err:any){
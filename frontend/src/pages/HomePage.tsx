@@ -10,15 +10,9 @@ interface HomePageProps {
     onLogout: () => void;
 }
 
-interface User {
-    id: number;
-    username: string;
-    email: string;
-}
 export interface GroceryList{
     id: number;
     name: string;
-    user: User;
 }
 
 export interface Item{
@@ -26,7 +20,7 @@ export interface Item{
     name: string;
     quantity: number;
     completed: boolean;
-    groceryList: GroceryList
+    groceryListId: number;
 }
 
 interface HomePageProps {
@@ -1,5 +1,5 @@
-import axios from 'axios';
-import {getToken} from './auth';
+import axios, {type InternalAxiosRequestConfig} from 'axios';
+import {getToken, setToken, getRefreshToken, setRefreshToken, removeToken} from './auth';
 
 const API_BASE_URL = import.meta.env.VITE_API_URL;
 
@@ -23,4 +23,45 @@ api.interceptors.request.use(
   }
 )
 
+type RetriedRequestConfig = InternalAxiosRequestConfig & {retried?: boolean};
+
+// A refresh token works only once, so requests that fail together wait on the same refresh
+let refreshing: Promise<void> | null = null;
+
+const refreshTokens = (): Promise<void> => {
+    if(!refreshing){
+        refreshing = api.post('/auth/refresh', {refreshToken: getRefreshToken()})
+            .then((response) => {
+                setToken(response.data.token);
+                setRefreshToken(response.data.refreshToken);
+            })
+            .finally(() => {
+                refreshing = null;
+            });
+    }
+    return refreshing;
+}
+
+// Access tokens are short-lived: on a 401 swap the refresh token for a new pair and retry once.
+// If that fails too the session is over, so go back to the sign-in page.
+api.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+        const config = error.config as RetriedRequestConfig | undefined;
+        if(error.response?.status !== 401 || !config || config.retried
+            || config.url?.startsWith('/auth/') || !getRefreshToken()){
+            return Promise.reject(error);
+        }
+        config.retried = true;
+        try{
+            await refreshTokens();
+        }catch(refreshError){
+            removeToken();
+            window.location.assign('/auth');
+            return Promise.reject(refreshError);
+        }
+        return api(config);
+    }
+)
+
 export default api;
\ No newline at end of file
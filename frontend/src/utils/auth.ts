@@ -6,6 +6,15 @@ export const setToken = (token: string): void => {
     localStorage.setItem('jwt_token', token)
 }
 
+export const getRefreshToken = (): string | null => {
+    return localStorage.getItem('refresh_token')
+}
+
+export const setRefreshToken = (refreshToken: string): void => {
+    localStorage.setItem('refresh_token', refreshToken)
+}
+
 export const removeToken = (): void => {
     localStorage.removeItem('jwt_token')
+    localStorage.removeItem('refresh_token')
 }
\ No newline at end of file